@@ -0,0 +1,62 @@
+package com.upgrad.quora.api.authorization;
+
+import com.upgrad.quora.service.business.AuthorizationService;
+import com.upgrad.quora.service.entity.UserAuthTokenEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves and authorizes the access token of the request exactly once, before the controller is entered.
+ * Only handler methods with an {@link AuthorizedUser} parameter are checked; the resolved session is kept as a request attribute
+ * for {@link AuthorizedUserArgumentResolver}.
+ */
+@Component
+public class AuthorizationInterceptor extends HandlerInterceptorAdapter {
+
+    static final String AUTHORIZED_USER_ATTRIBUTE = AuthorizationInterceptor.class.getName() + ".AUTHORIZED_USER";
+
+    private static final String AUTHORIZATION_HEADER = "authorization";
+
+    @Autowired
+    private AuthorizationService authorizationService;
+
+    private final Map<Method, Optional<AuthorizedUser>> authorizedUserByMethod = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean preHandle(final HttpServletRequest request, final HttpServletResponse response, final Object handler) throws Exception {
+
+        if (!(handler instanceof HandlerMethod)) {
+            return true;
+        }
+
+        Optional<AuthorizedUser> authorizedUser = authorizedUserByMethod.computeIfAbsent(((HandlerMethod) handler).getMethod(),
+                method -> findAuthorizedUser((HandlerMethod) handler));
+
+        if (authorizedUser.isPresent() && request.getAttribute(AUTHORIZED_USER_ATTRIBUTE) == null) {
+            UserAuthTokenEntity userAuthTokenEntity = authorizationService.getUserAuthTokenEntity(
+                    request.getHeader(AUTHORIZATION_HEADER), authorizedUser.get().value());
+            request.setAttribute(AUTHORIZED_USER_ATTRIBUTE, userAuthTokenEntity);
+        }
+        return true;
+    }
+
+    private static Optional<AuthorizedUser> findAuthorizedUser(final HandlerMethod handlerMethod) {
+        for (MethodParameter parameter : handlerMethod.getMethodParameters()) {
+            AuthorizedUser authorizedUser = parameter.getParameterAnnotation(AuthorizedUser.class);
+            if (authorizedUser != null) {
+                return Optional.of(authorizedUser);
+            }
+        }
+        return Optional.empty();
+    }
+}
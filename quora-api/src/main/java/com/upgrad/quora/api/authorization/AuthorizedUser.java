@@ -0,0 +1,19 @@
+package com.upgrad.quora.api.authorization;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a controller method parameter of type UserAuthTokenEntity or UserEntity that has to be filled with the signed in user.
+ * The value is the EndPointIdentifier constant of the endpoint, used as the message when the user has signed out (ATHR-002).
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface AuthorizedUser {
+
+    String value();
+}
@@ -0,0 +1,38 @@
+package com.upgrad.quora.api.authorization;
+
+import com.upgrad.quora.service.entity.UserAuthTokenEntity;
+import com.upgrad.quora.service.entity.UserEntity;
+import org.springframework.core.MethodParameter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+/**
+ * Supplies {@link AuthorizedUser} parameters with the session resolved by {@link AuthorizationInterceptor}.
+ */
+@Component
+public class AuthorizedUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+    @Override
+    public boolean supportsParameter(final MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(AuthorizedUser.class)
+                && (UserAuthTokenEntity.class.equals(parameter.getParameterType())
+                || UserEntity.class.equals(parameter.getParameterType()));
+    }
+
+    @Override
+    public Object resolveArgument(final MethodParameter parameter, final ModelAndViewContainer mavContainer,
+                                  final NativeWebRequest webRequest, final WebDataBinderFactory binderFactory) {
+
+        UserAuthTokenEntity userAuthTokenEntity = (UserAuthTokenEntity) webRequest.getAttribute(
+                AuthorizationInterceptor.AUTHORIZED_USER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+
+        if (userAuthTokenEntity == null) {
+            throw new IllegalStateException("No authorized user resolved for " + parameter.getMethod());
+        }
+        return UserEntity.class.equals(parameter.getParameterType()) ? userAuthTokenEntity.getUser() : userAuthTokenEntity;
+    }
+}
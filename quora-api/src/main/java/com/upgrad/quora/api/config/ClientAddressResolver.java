@@ -0,0 +1,62 @@
+package com.upgrad.quora.api.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletRequest;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Resolves the address of the client of a request behind the configured trusted proxies.
+ * The forwarded header is only believed when the request comes from a trusted proxy, and is read from the right, the last
+ * hop first, up to the first address that is not a trusted proxy; addresses left of it could have been made up by the client.
+ */
+@Component
+public class ClientAddressResolver {
+
+    @Value("${quora.http.trusted-proxies:}")
+    private String trustedProxies;
+
+    @Value("${quora.http.forwarded-header:X-Forwarded-For}")
+    private String forwardedHeader;
+
+    private final Set<String> trustedProxyAddresses = new HashSet<>();
+
+    @PostConstruct
+    void init() {
+        for (String address : trustedProxies.split(",")) {
+            if (!address.trim().isEmpty()) {
+                trustedProxyAddresses.add(address.trim());
+            }
+        }
+    }
+
+    /**
+     * @param request the servlet request
+     * @return address of the client, the remote address of the request when it does not come from a trusted proxy
+     */
+    public String resolve(final HttpServletRequest request) {
+        String address = request.getRemoteAddr();
+        if (!trustedProxyAddresses.contains(address)) {
+            return address;
+        }
+        final String forwarded = request.getHeader(forwardedHeader);
+        if (forwarded == null) {
+            return address;
+        }
+        final String[] hops = forwarded.split(",");
+        for (int i = hops.length - 1; i >= 0; i--) {
+            final String hop = hops[i].trim();
+            if (hop.isEmpty()) {
+                break;
+            }
+            address = hop;
+            if (!trustedProxyAddresses.contains(hop)) {
+                break;
+            }
+        }
+        return address;
+    }
+}
@@ -1,22 +1,32 @@
 package com.upgrad.quora.api.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.upgrad.quora.api.authorization.AuthorizedUser;
+import com.upgrad.quora.api.importer.UserImportReader;
 import com.upgrad.quora.api.model.UserDeleteResponse;
+import com.upgrad.quora.api.model.UserImportError;
+import com.upgrad.quora.api.model.UserImportResponse;
 import com.upgrad.quora.service.business.AdminService;
-import com.upgrad.quora.service.business.AuthorizationService;
+import com.upgrad.quora.service.business.UserImportResult;
+import com.upgrad.quora.service.business.UserImportService;
 import com.upgrad.quora.service.business.UserService;
 import com.upgrad.quora.service.common.EndPointIdentifier;
-import com.upgrad.quora.service.entity.UserAuthTokenEntity;
 import com.upgrad.quora.service.entity.UserEntity;
 import com.upgrad.quora.service.exception.AuthenticationFailedException;
 import com.upgrad.quora.service.exception.AuthorizationFailedException;
 import com.upgrad.quora.service.exception.UserNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PathVariable;
-import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.PostMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.util.stream.Collectors;
 
 
 
@@ -27,15 +37,18 @@ public class AdminController implements EndPointIdentifier {
     UserService userService;
 
     @Autowired
-    AuthorizationService authorizationService;
+    AdminService adminService;
 
     @Autowired
-    AdminService adminService;
+    UserImportService userImportService;
+
+    @Autowired
+    ObjectMapper objectMapper;
 
     /**
      * Method that implements the userDelete endpoint.
      *
-     * @param accessToken String containing access token of user with admin role
+     * @param userEntity the signed in user, resolved from the access token in the authorization header
      * @param userId String containing UUID of user to be deleted
      * @return ResponseEntity with UserDeleteResponse and HTTP Status
      * @throws AuthenticationFailedException in cases where the user has not signed in, has signed out or if the user is not an admin
@@ -43,13 +56,10 @@ public class AdminController implements EndPointIdentifier {
      */
 
     @DeleteMapping(path = "/admin/user/{userId}")
-    public ResponseEntity<UserDeleteResponse> userDelete(@RequestHeader("authorization") String accessToken,
+    public ResponseEntity<UserDeleteResponse> userDelete(@AuthorizedUser(ADMIN_ENDPOINT) UserEntity userEntity,
                                                          @PathVariable String userId) throws
             AuthorizationFailedException, UserNotFoundException {
 
-        UserAuthTokenEntity userAuthTokenEntity = authorizationService.getUserAuthTokenEntity(accessToken,EndPointIdentifier.ADMIN_ENDPOINT);
-        UserEntity userEntity = userAuthTokenEntity.getUser();
-
         if (userEntity.getRole().equals("nonadmin")) {
 
             throw new AuthorizationFailedException("ATHR-003",
@@ -64,4 +74,43 @@ public class AdminController implements EndPointIdentifier {
         }
     }
 
+    /**
+     * Method that implements the userImport endpoint.
+     * The upload is read while it is imported, one user per NDJSON line or per CSV row after a header row.
+     *
+     * @param userEntity the signed in user, resolved from the access token in the authorization header
+     * @param request the servlet request, for the streamed upload
+     * @return ResponseEntity with UserImportResponse, listing the rows that could not be imported, and HTTP Status
+     * @throws AuthorizationFailedException in cases where the user has not signed in, has signed out or if the user is not an admin
+     * @throws IOException in cases where the upload cannot be read
+     */
+
+    @PostMapping(path = "/admin/users/import", consumes = {"application/x-ndjson", "text/csv"},
+            produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public ResponseEntity<UserImportResponse> userImport(@AuthorizedUser(ADMIN_ENDPOINT) UserEntity userEntity,
+                                                         HttpServletRequest request) throws
+            AuthorizationFailedException, IOException {
+
+        if (userEntity.getRole().equals("nonadmin")) {
+
+            throw new AuthorizationFailedException("ATHR-003",
+                    "Unauthorized Access, Entered user is not an admin");
+        }
+
+        final boolean csv = MediaType.parseMediaType(request.getContentType()).isCompatibleWith(MediaType.valueOf("text/csv"));
+        UserImportResult result = userImportService.importUsers(
+                new UserImportReader(request.getInputStream(), csv, objectMapper));
+
+        UserImportResponse userImportResponse = new UserImportResponse()
+                .imported(result.getImportedCount())
+                .failed(result.getFailedCount())
+                .rowsPerSecond(result.getRowsPerSecond())
+                .errors(result.getErrors().stream()
+                        .map(error -> new UserImportError().row(error.getRowNumber()).code(error.getCode())
+                                .message(error.getMessage()))
+                        .collect(Collectors.toList()));
+
+        return new ResponseEntity<UserImportResponse>(userImportResponse, HttpStatus.OK);
+    }
+
 }
@@ -1,23 +1,28 @@
 package com.upgrad.quora.api.controller;
 
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.upgrad.quora.api.authorization.AuthorizedUser;
 import com.upgrad.quora.api.model.*;
 import com.upgrad.quora.service.business.AnswerService;
-import com.upgrad.quora.service.business.AuthorizationService;
 import com.upgrad.quora.service.business.QuestionService;
+import com.upgrad.quora.service.business.QuestionWithAnswers;
 import com.upgrad.quora.service.common.EndPointIdentifier;
-import com.upgrad.quora.service.dao.QuestionDao;
+import com.upgrad.quora.service.dao.AnswerSummary;
 import com.upgrad.quora.service.entity.AnswerEntity;
-import com.upgrad.quora.service.entity.QuestionEntity;
 import com.upgrad.quora.service.entity.UserAuthTokenEntity;
 import com.upgrad.quora.service.exception.AuthorizationFailedException;
 import com.upgrad.quora.service.exception.InvalidAnswerException;
+import com.upgrad.quora.service.exception.InvalidBatchException;
 import com.upgrad.quora.service.exception.InvalidQuestionException;
+import com.upgrad.quora.service.exception.PreconditionFailedException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
@@ -31,23 +36,19 @@ public class AnswerController implements EndPointIdentifier {
     @Autowired
     QuestionService questionService;
 
-    @Autowired
-    AuthorizationService authorizationService;
-
     @Autowired
     AnswerService answerService;
 
     @Autowired
-    QuestionDao questionDao;
+    ObjectMapper objectMapper;
 
 
     @PostMapping(path = "/question/{questionId}/answer/create", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-    public ResponseEntity<AnswerResponse> createAnswer(@RequestHeader("authorization") String accessToken,@PathVariable String questionId,
+    public ResponseEntity<AnswerResponse> createAnswer(@AuthorizedUser(ANSWER_ENDPOINT) UserAuthTokenEntity userAuthTokenEntity,@PathVariable String questionId,
                                                        final AnswerRequest answerRequest) throws
-            AuthorizationFailedException, InvalidQuestionException {
+            InvalidQuestionException {
 
         final AnswerEntity answerEntity = new AnswerEntity();
-        UserAuthTokenEntity userAuthTokenEntity = authorizationService.getUserAuthTokenEntity(accessToken,ANSWER_ENDPOINT);
         answerEntity.setUser(userAuthTokenEntity.getUser());
         answerEntity.setAns(answerRequest.getAnswer());
         answerEntity.setDate(ZonedDateTime.now());
@@ -61,25 +62,27 @@ public class AnswerController implements EndPointIdentifier {
     }
 
     @PutMapping(path = "/answer/edit/{answerId}", consumes = MediaType.APPLICATION_JSON_UTF8_VALUE, produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-    public ResponseEntity<AnswerEditResponse> editAnswerContent(AnswerEditRequest answerEditRequest, @RequestHeader("authorization") String accessToken, @PathVariable String answerId)
-            throws AuthorizationFailedException, InvalidAnswerException {
+    public ResponseEntity<AnswerEditResponse> editAnswerContent(AnswerEditRequest answerEditRequest, @AuthorizedUser(CHECK_ANSWER) UserAuthTokenEntity userAuthTokenEntity, @PathVariable String answerId,
+                                                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch)
+            throws AuthorizationFailedException, InvalidAnswerException, PreconditionFailedException {
 
 
-        AnswerEntity answerEntity = answerService.checkAnswer(answerId, accessToken);
-        answerEntity.setAns(answerEditRequest.getContent());
-        AnswerEntity updatedAnswerEntity = answerService.updateAnswer(answerEntity);
+        Integer version = answerService.editAnswerContent(answerId, answerEditRequest.getContent(),
+                EntityTags.toExpectedVersion(ifMatch), userAuthTokenEntity);
 
-        AnswerEditResponse answerEditResponse = new AnswerEditResponse().id(updatedAnswerEntity.getUuid()).status("ANSWER EDITED");
+        AnswerEditResponse answerEditResponse = new AnswerEditResponse().id(answerId).status("ANSWER EDITED");
 
-        return new ResponseEntity<AnswerEditResponse>(answerEditResponse, HttpStatus.OK);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(EntityTags.toEntityTag(version));
+        return new ResponseEntity<AnswerEditResponse>(answerEditResponse, headers, HttpStatus.OK);
     }
 
         @DeleteMapping(path = "/answer/delete/{answerId}")
-        public ResponseEntity<AnswerDeleteResponse> answerDelete(@RequestHeader("authorization") String accessToken,
+        public ResponseEntity<AnswerDeleteResponse> answerDelete(@AuthorizedUser(DELETE_ANSWER) UserAuthTokenEntity userAuthTokenEntity,
                 @PathVariable String answerId) throws
                 AuthorizationFailedException, InvalidAnswerException {
 
-            String id = answerService.deleteAnswer(answerId,accessToken);
+            String id = answerService.deleteAnswer(answerId,userAuthTokenEntity);
 
             AnswerDeleteResponse answerDeleteResponse = new AnswerDeleteResponse().id(id)
                     .status("ANSWER DELETED");
@@ -90,22 +93,21 @@ public class AnswerController implements EndPointIdentifier {
         }
 
     @GetMapping(path = "/all/{questionId}", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-    public ResponseEntity<List<AnswerDetailsResponse>> getAllAnswersToQuestion(@RequestHeader("authorization") String accessToken, @PathVariable String questionId) throws AuthorizationFailedException, InvalidAnswerException, InvalidQuestionException {
+    public ResponseEntity<List<AnswerDetailsResponse>> getAllAnswersToQuestion(@AuthorizedUser(GET_ALL_ANSWERS) UserAuthTokenEntity userAuthTokenEntity, @PathVariable String questionId) throws InvalidQuestionException {
 
 
-        List<AnswerEntity> answerEntityList = answerService.getAllAnswersToQuestion(accessToken, questionId);
+        List<AnswerSummary> answerSummaryList = answerService.getAllAnswersToQuestion(questionId);
 
 
-        QuestionEntity questionEntity = questionDao.getQuestionById(questionId);
-        String questionContent = questionEntity.getContent();
         List<AnswerDetailsResponse> answerDetailsResponseList = new ArrayList<>();
-        if (!answerEntityList.isEmpty()) {
+        if (!answerSummaryList.isEmpty()) {
 
-            for (AnswerEntity n : answerEntityList) {
+            for (AnswerSummary n : answerSummaryList) {
                 AnswerDetailsResponse answerDetailsResponse = new AnswerDetailsResponse();
                 answerDetailsResponse.setId(n.getUuid());
-                answerDetailsResponse.setAnswerContent(n.getAns());
-                answerDetailsResponse.setQuestionContent(questionContent);
+                answerDetailsResponse.setAnswerContent(n.getAnswerContent());
+                answerDetailsResponse.setQuestionContent(n.getQuestionContent());
+                answerDetailsResponse.setVersion(n.getVersion());
 
                 answerDetailsResponseList.add(answerDetailsResponse);
             }
@@ -116,4 +118,59 @@ public class AnswerController implements EndPointIdentifier {
 
 
     }
+
+    /**
+     * Method implements the streaming mode of the get all answers to a question endpoint, for consumers of the full listing.
+     * Answers are written to the response as they are read from the database.
+     *
+     * @param userAuthTokenEntity session of the signed in user, resolved from the access token in the authorization header
+     * @param questionId          the uuid of the question
+     * @return ResponseEntity streaming the list of all the answers to the question
+     * @throws InvalidQuestionException in cases where the question does not exist
+     */
+
+    @GetMapping(path = "/all/{questionId}", params = "stream=true", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllAnswersToQuestion(@AuthorizedUser(GET_ALL_ANSWERS) UserAuthTokenEntity userAuthTokenEntity, @PathVariable String questionId) throws InvalidQuestionException {
+
+        // Checked before the response starts, while the error can still be returned
+        answerService.checkQuestionExists(questionId);
+
+        StreamingResponseBody answerDetailsResponses = new JsonArrayStreamingResponseBody(objectMapper,
+                consumer -> answerService.streamAllAnswersToQuestion(questionId, answer -> consumer.accept(
+                        new AnswerDetailsResponse().id(answer.getUuid()).answerContent(answer.getAnswerContent())
+                                .questionContent(answer.getQuestionContent()).version(answer.getVersion()))));
+
+        return new ResponseEntity<>(answerDetailsResponses, HttpStatus.OK);
+    }
+
+    /**
+     * Method implements the batch endpoint getting several questions with their first answers, in a fixed number of queries.
+     *
+     * @param userAuthTokenEntity  session of the signed in user, resolved from the access token in the authorization header
+     * @param questionBatchRequest uuids of the questions
+     * @return ResponseEntity with the questions that exist, in the requested order, each with its first answers
+     * @throws InvalidBatchException in cases where no list of question uuids is given, or more questions are asked than the
+     * configured maximum
+     */
+
+    @PostMapping(path = "/answer/batch", consumes = MediaType.APPLICATION_JSON_UTF8_VALUE, produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public ResponseEntity<List<QuestionAnswersResponse>> getQuestionsWithAnswers(@AuthorizedUser(GET_ALL_ANSWERS) UserAuthTokenEntity userAuthTokenEntity,
+                                                                                 @RequestBody QuestionBatchRequest questionBatchRequest)
+            throws InvalidBatchException {
+
+        List<QuestionAnswersResponse> questionAnswersResponseList = new ArrayList<>();
+        for (QuestionWithAnswers questionWithAnswers : answerService.getQuestionsWithAnswers(questionBatchRequest.getQuestionIds(),
+                questionBatchRequest.getAnswerLimit())) {
+            List<AnswerContentResponse> answerContentResponseList = new ArrayList<>();
+            for (AnswerSummary n : questionWithAnswers.getAnswers()) {
+                answerContentResponseList.add(new AnswerContentResponse().id(n.getUuid()).answerContent(n.getAnswerContent())
+                        .version(n.getVersion()));
+            }
+            questionAnswersResponseList.add(new QuestionAnswersResponse().id(questionWithAnswers.getQuestion().getUuid())
+                    .content(questionWithAnswers.getQuestion().getContent())
+                    .version(questionWithAnswers.getQuestion().getVersion()).answers(answerContentResponseList));
+        }
+
+        return new ResponseEntity<>(questionAnswersResponseList, HttpStatus.OK);
+    }
 }
\ No newline at end of file
@@ -1,7 +1,7 @@
 package com.upgrad.quora.api.controller;
 
+import com.upgrad.quora.api.authorization.AuthorizedUser;
 import com.upgrad.quora.api.model.UserDetailsResponse;
-import com.upgrad.quora.service.business.AuthorizationService;
 import com.upgrad.quora.service.business.UserService;
 import com.upgrad.quora.service.common.EndPointIdentifier;
 import com.upgrad.quora.service.entity.UserAuthTokenEntity;
@@ -16,7 +16,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
-import org.springframework.web.bind.annotation.RequestHeader;
 
 
 @Controller
@@ -24,16 +23,13 @@ public class CommonController implements EndPointIdentifier {
 
     // Implemented Endpoint Identifier interface for generic AuthorizationFailedException Handling
 
-    @Autowired
-    AuthorizationService authorizationService;
-
     @Autowired
     UserService userService;
 
     /**
      * Method that implements the user profile endpoint.
      *
-     * @param accessToken String containing access token
+     * @param userAuthTokenEntity session of the signed in user, resolved from the access token in the authorization header
      * @param userId String containing Uuid of the user
      * @return ResponseEntity that returns the user details and HTTP status
      * @throws AuthenticationFailedException in cases where the user is not signed in
@@ -41,12 +37,10 @@ public class CommonController implements EndPointIdentifier {
      */
 
     @GetMapping(path =  "/userprofile/{userId}", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-    public ResponseEntity<UserDetailsResponse> userProfile (@RequestHeader("authorization") String accessToken ,
+    public ResponseEntity<UserDetailsResponse> userProfile (@AuthorizedUser(USER_ENDPOINT) UserAuthTokenEntity userAuthTokenEntity ,
                                                            @PathVariable String userId)
             throws AuthorizationFailedException, UserNotFoundException {
 
-        UserAuthTokenEntity userAuthTokenEntity = authorizationService.getUserAuthTokenEntity(accessToken,USER_ENDPOINT);
-
         UserEntity userEntity = userService.getUserByUUID(userId);
 
         final UserDetailsResponse userDetailsResponse = new UserDetailsResponse().userName(userEntity.getUserName())
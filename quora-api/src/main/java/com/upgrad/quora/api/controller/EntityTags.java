@@ -0,0 +1,44 @@
+package com.upgrad.quora.api.controller;
+
+import com.upgrad.quora.service.exception.PreconditionFailedException;
+
+/**
+ * Conversion between the version of a question or answer and the entity tag of the If-Match and ETag headers.
+ * The tag is the version in quotes; weak tags are accepted in If-Match since the version identifies the content.
+ */
+final class EntityTags {
+
+    private EntityTags() {
+    }
+
+    /**
+     * @param version version of the question or answer
+     * @return the value of the ETag header
+     */
+    static String toEntityTag(final Integer version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * @param ifMatch value of the If-Match header, may be null
+     * @return the version the request expects, or null when the header is absent or * and any version may be changed
+     * @throws PreconditionFailedException in cases where the header is not the tag of a version
+     */
+    static Integer toExpectedVersion(final String ifMatch) throws PreconditionFailedException {
+        if (ifMatch == null || ifMatch.trim().isEmpty() || "*".equals(ifMatch.trim())) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() > 1 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        try {
+            return Integer.valueOf(tag);
+        } catch (NumberFormatException e) {
+            throw new PreconditionFailedException("VER-002", "If-Match does not name a version of this resource");
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.upgrad.quora.api.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Response body writing a JSON array element by element straight to the response, as the elements are produced.
+ */
+class JsonArrayStreamingResponseBody implements StreamingResponseBody {
+
+    private final ObjectMapper objectMapper;
+
+    private final Consumer<Consumer<Object>> producer;
+
+    /**
+     * @param objectMapper mapper writing each element
+     * @param producer     called once with the consumer to hand every element of the array to
+     */
+    JsonArrayStreamingResponseBody(final ObjectMapper objectMapper, final Consumer<Consumer<Object>> producer) {
+        this.objectMapper = objectMapper;
+        this.producer = producer;
+    }
+
+    @Override
+    public void writeTo(final OutputStream outputStream) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            generator.writeStartArray();
+            producer.accept(element -> {
+                try {
+                    generator.writeObject(element);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -1,20 +1,28 @@
 package com.upgrad.quora.api.controller;
 
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.upgrad.quora.api.authorization.AuthorizedUser;
 import com.upgrad.quora.api.model.*;
-import com.upgrad.quora.service.business.AuthorizationService;
 import com.upgrad.quora.service.business.QuestionService;
 import com.upgrad.quora.service.common.EndPointIdentifier;
+import com.upgrad.quora.service.common.KeysetPage;
+import com.upgrad.quora.service.common.SearchHit;
+import com.upgrad.quora.service.dao.QuestionSummary;
 import com.upgrad.quora.service.entity.QuestionEntity;
 import com.upgrad.quora.service.entity.UserAuthTokenEntity;
 import com.upgrad.quora.service.exception.AuthorizationFailedException;
+import com.upgrad.quora.service.exception.InvalidCursorException;
 import com.upgrad.quora.service.exception.InvalidQuestionException;
+import com.upgrad.quora.service.exception.PreconditionFailedException;
 import com.upgrad.quora.service.exception.UserNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
@@ -26,31 +34,30 @@ import java.util.UUID;
 @RequestMapping("/")
 public class QuestionController implements EndPointIdentifier {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     // Implemented Endpoint Identifier interface for generic AuthorizationFailedException Handling
 
     @Autowired
     QuestionService questionService;
 
     @Autowired
-    AuthorizationService authorizationService;
+    ObjectMapper objectMapper;
 
 
 
     /**
      * Method implements the question creation endpoint
      *
-     * @param accessToken     accesstoken assigned to the user upon signin
+     * @param userAuthTokenEntity session of the signed in user, resolved from the access token in the authorization header
      * @param questionRequest has all the details for creating a new question
      * @return ResponseEntity to indicate the question creation was successful or not and also returns uuid of question created
-     * @throws AuthorizationFailedException
      */
     @PostMapping(path = "/question/create", consumes = MediaType.APPLICATION_JSON_UTF8_VALUE, produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-    public ResponseEntity<QuestionResponse> createQuestion(@RequestHeader("authorization") String accessToken,
-                                                           final QuestionRequest questionRequest) throws
-            AuthorizationFailedException {
+    public ResponseEntity<QuestionResponse> createQuestion(@AuthorizedUser(QUESTION_ENDPOINT) UserAuthTokenEntity userAuthTokenEntity,
+                                                           final QuestionRequest questionRequest) {
 
         final QuestionEntity questionEntity = new QuestionEntity();
-        UserAuthTokenEntity userAuthTokenEntity = authorizationService.getUserAuthTokenEntity(accessToken,QUESTION_ENDPOINT);
 
         questionEntity.setUuid(UUID.randomUUID().toString());
         questionEntity.setUserId(userAuthTokenEntity.getUser());
@@ -66,57 +73,96 @@ public class QuestionController implements EndPointIdentifier {
 
 
     /**
-     * Method implements the get all questions endpoint
+     * Method implements the get all questions endpoint, one page at a time
      *
-     * @param accessToken assigned to the user upon signin
-     * @return ResponseEntity to indicate the status of the query as well as the list of questions
-     * @throws AuthorizationFailedException
+     * @param userAuthTokenEntity session of the signed in user, resolved from the access token in the authorization header
+     * @param cursor              X-Next-Cursor header of the previous page, or null for the first page
+     * @param limit               requested number of questions per page
+     * @return ResponseEntity to indicate the status of the query as well as the list of questions, with the cursor of the next
+     * page in the X-Next-Cursor header
+     * @throws InvalidCursorException
      */
 
     @GetMapping(path = "/question/all", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-    public ResponseEntity<List<QuestionDetailsResponse>> getAllQuestions(@RequestHeader("authorization") String accessToken) throws AuthorizationFailedException {
+    public ResponseEntity<List<QuestionDetailsResponse>> getAllQuestions(@AuthorizedUser(GET_ALL_QUESTIONS) UserAuthTokenEntity userAuthTokenEntity,
+                                                                         @RequestParam(required = false) String cursor,
+                                                                         @RequestParam(required = false) Integer limit)
+            throws InvalidCursorException {
 
-        List<QuestionEntity> questionEntityList = questionService.getAllQuestions(accessToken);
+        KeysetPage<QuestionSummary> questionPage = questionService.getAllQuestions(cursor, limit);
 
-        List<QuestionDetailsResponse> questionDetailsResponseList = new ArrayList<QuestionDetailsResponse>();
-        if (!questionEntityList.isEmpty()) {
+        return toResponse(questionPage);
+
+    }
+
+    /**
+     * Method implements the streaming mode of the get all questions endpoint, for consumers of the full listing.
+     * Questions are written to the response as they are read from the database, newest first.
+     *
+     * @param userAuthTokenEntity session of the signed in user, resolved from the access token in the authorization header
+     * @return ResponseEntity streaming the list of all the questions
+     */
+
+    @GetMapping(path = "/question/all", params = "stream=true", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllQuestions(@AuthorizedUser(GET_ALL_QUESTIONS) UserAuthTokenEntity userAuthTokenEntity) {
+
+        StreamingResponseBody questionDetailsResponses = new JsonArrayStreamingResponseBody(objectMapper,
+                consumer -> questionService.streamAllQuestions(question -> consumer.accept(
+                        new QuestionDetailsResponse().id(question.getUuid()).content(question.getContent())
+                                .version(question.getVersion()))));
+
+        return new ResponseEntity<>(questionDetailsResponses, HttpStatus.OK);
+    }
 
-            for (QuestionEntity n : questionEntityList) {
-                QuestionDetailsResponse questionDetailsResponse = new QuestionDetailsResponse();
-                questionDetailsResponse.setId(n.getUuid());
-                questionDetailsResponse.setContent(n.getContent());
+    /**
+     * Method implements the search questions endpoint, ranking the questions by the relevance of their content to the query.
+     *
+     * @param userAuthTokenEntity session of the signed in user, resolved from the access token in the authorization header
+     * @param query               text to be searched
+     * @param limit               requested number of questions
+     * @return ResponseEntity with the list of the most relevant questions, best first
+     */
 
-                questionDetailsResponseList.add(questionDetailsResponse);
-            }
+    @GetMapping(path = "/question/search", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public ResponseEntity<List<QuestionDetailsResponse>> searchQuestions(@AuthorizedUser(GET_ALL_QUESTIONS) UserAuthTokenEntity userAuthTokenEntity,
+                                                                         @RequestParam String query,
+                                                                         @RequestParam(required = false) Integer limit) {
 
+        List<QuestionDetailsResponse> questionDetailsResponseList = new ArrayList<QuestionDetailsResponse>();
+        for (SearchHit hit : questionService.searchQuestions(query, limit)) {
+            questionDetailsResponseList.add(new QuestionDetailsResponse().id(hit.getUuid()).content(hit.getText()));
         }
 
         return new ResponseEntity<>(questionDetailsResponseList, HttpStatus.OK);
-
     }
 
     /**
      * Method implements the edit question content endoint
      *
-     * @param accessToken         assigned to the user upon signin
+     * @param userAuthTokenEntity session of the signed in user, resolved from the access token in the authorization header
      * @param questionId          the uuid of the question to be edited
      * @param questionEditRequest provides the content to edit in the question
-     * @return ResponseEntity  indicating the edit was a success or not along with the updated question uuid
+     * @param ifMatch             optional entity tag of the version the edit is based on
+     * @return ResponseEntity  indicating the edit was a success or not along with the updated question uuid, and the
+     * entity tag of the new version
      * @throws AuthorizationFailedException
      * @throws InvalidQuestionException
+     * @throws PreconditionFailedException in cases where the question was changed since the version in If-Match
      */
     @PutMapping(path = "/question/edit/{questionId}", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-    public ResponseEntity<QuestionEditResponse> editQuestionContent(@RequestHeader("authorization") String accessToken, @PathVariable String questionId, QuestionEditRequest questionEditRequest)
-            throws AuthorizationFailedException, InvalidQuestionException {
+    public ResponseEntity<QuestionEditResponse> editQuestionContent(@AuthorizedUser(CHECK_QUESTION) UserAuthTokenEntity userAuthTokenEntity, @PathVariable String questionId, QuestionEditRequest questionEditRequest,
+                                                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch)
+            throws AuthorizationFailedException, InvalidQuestionException, PreconditionFailedException {
 
 
-        QuestionEntity questionEntity = questionService.checkQuestion(accessToken, questionId);
-        questionEntity.setContent(questionEditRequest.getContent());
-        QuestionEntity updatedQuestionEntity = questionService.updateQuestion(questionEntity);
+        Integer version = questionService.editQuestionContent(userAuthTokenEntity, questionId, questionEditRequest.getContent(),
+                EntityTags.toExpectedVersion(ifMatch));
 
-        QuestionEditResponse questionEditResponse = new QuestionEditResponse().id(updatedQuestionEntity.getUuid()).status("QUESTION EDITED");
+        QuestionEditResponse questionEditResponse = new QuestionEditResponse().id(questionId).status("QUESTION EDITED");
 
-        return new ResponseEntity<>(questionEditResponse, HttpStatus.OK);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(EntityTags.toEntityTag(version));
+        return new ResponseEntity<>(questionEditResponse, headers, HttpStatus.OK);
 
 
     }
@@ -124,20 +170,20 @@ public class QuestionController implements EndPointIdentifier {
     /**
      * Method that implements question deletion endpoint
      *
-     * @param accessToken accessToken assigned to the user upon signin
-     * @param questionId  the uuid of the question to be deleted
+     * @param userAuthTokenEntity session of the signed in user, resolved from the access token in the authorization header
+     * @param questionId          the uuid of the question to be deleted
      * @return ResponseEntity to indicated the deletion was successful or not along with the deleted question id
      * @throws AuthorizationFailedException
      * @throws InvalidQuestionException
      */
 
     @DeleteMapping(path = "/question/delete/{questionId}")
-    public ResponseEntity<QuestionDeleteResponse> questionDelete(@RequestHeader("authorization") String accessToken,
+    public ResponseEntity<QuestionDeleteResponse> questionDelete(@AuthorizedUser(DELETE_QUESTION) UserAuthTokenEntity userAuthTokenEntity,
                                                                  @PathVariable String questionId) throws
 
             AuthorizationFailedException, InvalidQuestionException {
 
-        String id = questionService.deleteQuestion(questionId, accessToken);
+        String id = questionService.deleteQuestion(questionId, userAuthTokenEntity);
 
         QuestionDeleteResponse questionDeleteResponse = new QuestionDeleteResponse().id(id)
                 .status("QUESTION DELETED");
@@ -148,29 +194,46 @@ public class QuestionController implements EndPointIdentifier {
     /**
      * Method implements the get all questions by user endpoint
      *
-     * @param accessToken access token assigned to the user upon sigin
-     * @param userId      uuid of the user
-     * @return ResponseEntity has the status and the list of the questions
-     * @throws AuthorizationFailedException
+     * @param userAuthTokenEntity session of the signed in user, resolved from the access token in the authorization header
+     * @param userId              uuid of the user
+     * @param cursor              X-Next-Cursor header of the previous page, or null for the first page
+     * @param limit               requested number of questions per page
+     * @return ResponseEntity has the status and the list of the questions, with the cursor of the next page in the
+     * X-Next-Cursor header
      * @throws UserNotFoundException
+     * @throws InvalidCursorException
      */
     @GetMapping(path = "/question/all/{userId}")
-    public ResponseEntity<List<QuestionDetailsResponse>> getAllQuestionsByUser(@RequestHeader("authorization") String accessToken,
-                                                                               @PathVariable String userId) throws AuthorizationFailedException, UserNotFoundException {
+    public ResponseEntity<List<QuestionDetailsResponse>> getAllQuestionsByUser(@AuthorizedUser(GET_QUESTION_BY_USER) UserAuthTokenEntity userAuthTokenEntity,
+                                                                               @PathVariable String userId,
+                                                                               @RequestParam(required = false) String cursor,
+                                                                               @RequestParam(required = false) Integer limit)
+            throws UserNotFoundException, InvalidCursorException {
+
+        KeysetPage<QuestionSummary> questionPage = questionService.getAllQuestionsByUser(userId, cursor, limit);
 
-        List<QuestionEntity> questionEntityList = questionService.getAllQuestionsByUser(accessToken, userId);
+        return toResponse(questionPage);
+
+
+    }
+
+    private static ResponseEntity<List<QuestionDetailsResponse>> toResponse(KeysetPage<QuestionSummary> questionPage) {
 
         List<QuestionDetailsResponse> questionDetailsResponseList = new ArrayList<QuestionDetailsResponse>();
-        for (QuestionEntity n : questionEntityList) {
+        for (QuestionSummary n : questionPage.getItems()) {
             QuestionDetailsResponse questionDetailsResponse = new QuestionDetailsResponse();
             questionDetailsResponse.setId(n.getUuid());
             questionDetailsResponse.setContent(n.getContent());
+            questionDetailsResponse.setVersion(n.getVersion());
 
             questionDetailsResponseList.add(questionDetailsResponse);
         }
-        return new ResponseEntity<>(questionDetailsResponseList, HttpStatus.OK);
-
 
+        HttpHeaders headers = new HttpHeaders();
+        if (questionPage.getNextCursor() != null) {
+            headers.add(NEXT_CURSOR_HEADER, questionPage.getNextCursor());
+        }
+        return new ResponseEntity<>(questionDetailsResponseList, headers, HttpStatus.OK);
     }
 }
 
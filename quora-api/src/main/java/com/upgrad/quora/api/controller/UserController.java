@@ -1,6 +1,7 @@
 package com.upgrad.quora.api.controller;
 
 import com.upgrad.quora.api.*;
+import com.upgrad.quora.api.config.ClientAddressResolver;
 import com.upgrad.quora.api.model.SignoutResponse;
 import com.upgrad.quora.api.model.SignupUserRequest;
 import com.upgrad.quora.api.model.SignupUserResponse;
@@ -20,10 +21,13 @@ import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestHeader;
 
+import javax.servlet.http.HttpServletRequest;
+
 
 import java.time.ZonedDateTime;
 import java.util.Base64;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 
 @Controller
@@ -35,18 +39,22 @@ public class UserController {
     @Autowired
     AuthenticationService authenticationService;
 
+    @Autowired
+    ClientAddressResolver clientAddressResolver;
+
 
     /**
      * Method that implements the user signup endpoint.
      *
      * @param signupUserRequest to get user credentials
-     * @return ResponseEntity to indicate whether sign up is successful or not
+     * @return future of the ResponseEntity to indicate whether sign up is successful or not, completed once the password is hashed,
+     * or exceptionally with SignUpRestrictedException in cases where a concurrent signup took the username or the email
      * @throws SignUpRestrictedException in cases where username already exists, or email is already registered
      */
 
     @PostMapping(path = "/user/signup", consumes = MediaType.APPLICATION_JSON_UTF8_VALUE,
             produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-    public ResponseEntity<SignupUserResponse> signUp(final SignupUserRequest signupUserRequest) throws SignUpRestrictedException {
+    public CompletableFuture<ResponseEntity<SignupUserResponse>> signUp(final SignupUserRequest signupUserRequest) throws SignUpRestrictedException {
 
         final UserEntity userEntity = new UserEntity();
 
@@ -62,57 +70,46 @@ public class UserController {
         userEntity.setDob(signupUserRequest.getDob());
         userEntity.setContactNumber(signupUserRequest.getContactNumber());
 
-
-        String userNameExists = String.valueOf(userService.getUserByUserName(signupUserRequest.getUserName()));
-        String emailExists = String.valueOf(userService.getUserByEmail(signupUserRequest.getEmailAddress()));
-
-
-        // If username exists or user with given email exists, throw SignUpRestrictedException
-        // Else, create user and send response
-        if (!userNameExists.equals("null")) {
-
-            throw new SignUpRestrictedException("SGR-001", "Try any other Username, this Username has already been taken");
-        } else if (!emailExists.equals("null")) {
-
-            throw new SignUpRestrictedException("SGR-002", "This user has already been registered, try with any other emailId");
-        } else {
-
-            final UserEntity createdUserEntity = userService.createUser(userEntity);
+        // UserService throws SignUpRestrictedException if username exists or user with given email exists
+        return userService.createUser(userEntity).thenApply(createdUserEntity -> {
             SignupUserResponse userResponse = new SignupUserResponse()
                     .id(createdUserEntity.getUuid()).status("USER SUCCESSFULLY REGISTERED");
 
             return new ResponseEntity<SignupUserResponse>(userResponse, HttpStatus.CREATED);
-        }
+        });
     }
 
     /**
      * Method that implements user signin endpoint.
      *
      * @param authorization String containing "Basic username:password" where "username:password" is Base64 encoded
-     * @return ResponseEntity with SignInResponse, HTTPHeader, and HTTPStatus
-     * @throws AuthenticationFailedException in cases where the password is wrong or user does not exist
+     * @param request the servlet request, for the address of the client
+     * @return future of the ResponseEntity with SignInResponse, HTTPHeader, and HTTPStatus, completed exceptionally with
+     * AuthenticationFailedException in cases where the password is wrong or user does not exist, and with
+     * TooManyRequestsException in cases where the client or the username ran out of signin attempts
      */
 
     @PostMapping(path = "/user/signin", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-    public ResponseEntity<SigninResponse> signIn(@RequestHeader("authorization") final String authorization) throws
-            AuthenticationFailedException{
+    public CompletableFuture<ResponseEntity<SigninResponse>> signIn(@RequestHeader("authorization") final String authorization,
+                                                           final HttpServletRequest request) {
 
         byte[] decodeAuth = Base64.getDecoder().decode(authorization.split("Basic ")[1]);
         String decodedAuth = new String(decodeAuth);
         String[] decodedAuthArray = decodedAuth.split(":");
 
-        UserAuthTokenEntity userAuthToken = authenticationService.authenticate(decodedAuthArray[0],
-                decodedAuthArray[1]);
+        return authenticationService.authenticate(decodedAuthArray[0], decodedAuthArray[1], clientAddressResolver.resolve(request))
+                .thenApply(userAuthToken -> {
 
-        UserEntity userEntity = userAuthToken.getUser();
+            UserEntity userEntity = userAuthToken.getUser();
 
-        SigninResponse signinResponse = new SigninResponse().id(userEntity.getUuid())
-                .message("SIGNED IN SUCCESSFULLY");
+            SigninResponse signinResponse = new SigninResponse().id(userEntity.getUuid())
+                    .message("SIGNED IN SUCCESSFULLY");
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.add("access_token", userAuthToken.getAccessToken());
+            HttpHeaders headers = new HttpHeaders();
+            headers.add("access_token", userAuthToken.getAccessToken());
 
-        return new ResponseEntity<SigninResponse>(signinResponse, headers, HttpStatus.OK);
+            return new ResponseEntity<SigninResponse>(signinResponse, headers, HttpStatus.OK);
+        });
     }
 
     /**
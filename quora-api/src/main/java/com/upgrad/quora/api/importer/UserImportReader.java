@@ -0,0 +1,145 @@
+package com.upgrad.quora.api.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.upgrad.quora.api.model.SignupUserRequest;
+import com.upgrad.quora.service.business.UserImportRow;
+import com.upgrad.quora.service.entity.UserEntity;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the users of a bulk import upload one row at a time, as NDJSON (one signup request object per line) or as CSV (a
+ * header row naming the signup request fields, then one user per row). Blank lines are skipped.
+ */
+public class UserImportReader implements Iterator<UserImportRow> {
+
+    private final BufferedReader reader;
+
+    private final ObjectMapper objectMapper;
+
+    private final boolean csv;
+
+    private List<String> csvHeader;
+
+    private int rowNumber;
+
+    private String nextLine;
+
+    /**
+     * @param inputStream  the upload
+     * @param csv          true for CSV, false for NDJSON
+     * @param objectMapper mapper of the signup request
+     */
+    public UserImportReader(final InputStream inputStream, final boolean csv, final ObjectMapper objectMapper) {
+        this.reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        this.csv = csv;
+        this.objectMapper = objectMapper;
+        if (csv) {
+            String header = readLine();
+            csvHeader = header == null ? new ArrayList<>() : parseCsvLine(header);
+        }
+        nextLine = readLine();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return nextLine != null;
+    }
+
+    @Override
+    public UserImportRow next() {
+        if (nextLine == null) {
+            throw new NoSuchElementException();
+        }
+        final String line = nextLine;
+        nextLine = readLine();
+        rowNumber++;
+        try {
+            final SignupUserRequest signupUserRequest = csv
+                    ? objectMapper.convertValue(toFields(parseCsvLine(line)), SignupUserRequest.class)
+                    : objectMapper.readValue(line, SignupUserRequest.class);
+            return UserImportRow.of(rowNumber, toUserEntity(signupUserRequest));
+        } catch (IOException | IllegalArgumentException e) {
+            return UserImportRow.invalid(rowNumber, "Row is not a valid user");
+        }
+    }
+
+    private Map<String, String> toFields(final List<String> values) {
+        if (values.size() > csvHeader.size()) {
+            throw new IllegalArgumentException("More values than columns");
+        }
+        final Map<String, String> fields = new HashMap<>();
+        for (int i = 0; i < values.size(); i++) {
+            fields.put(csvHeader.get(i), values.get(i).isEmpty() ? null : values.get(i));
+        }
+        return fields;
+    }
+
+    private static UserEntity toUserEntity(final SignupUserRequest signupUserRequest) {
+        final UserEntity userEntity = new UserEntity();
+        userEntity.setFirstName(signupUserRequest.getFirstName());
+        userEntity.setLastName(signupUserRequest.getLastName());
+        userEntity.setUserName(signupUserRequest.getUserName());
+        userEntity.setEmailAddress(signupUserRequest.getEmailAddress());
+        userEntity.setPassword(signupUserRequest.getPassword());
+        userEntity.setCountry(signupUserRequest.getCountry());
+        userEntity.setAboutMe(signupUserRequest.getAboutMe());
+        userEntity.setDob(signupUserRequest.getDob());
+        userEntity.setContactNumber(signupUserRequest.getContactNumber());
+        return userEntity;
+    }
+
+    /**
+     * Splits a CSV line into its values; values may be quoted, with doubled quotes standing for a quote.
+     */
+    private static List<String> parseCsvLine(final String line) {
+        final List<String> values = new ArrayList<>();
+        final StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            final char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString().trim());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString().trim());
+        return values;
+    }
+
+    private String readLine() {
+        try {
+            String line;
+            do {
+                line = reader.readLine();
+            } while (line != null && line.trim().isEmpty());
+            return line;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
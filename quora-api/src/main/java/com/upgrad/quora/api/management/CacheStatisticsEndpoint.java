@@ -0,0 +1,83 @@
+package com.upgrad.quora.api.management;
+
+import com.upgrad.quora.service.business.QuestionValidityCheckService;
+import com.upgrad.quora.service.business.UserAuthTokenCache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Management endpoint (/actuator/cachestats) reporting the hit and miss counts of every Hibernate second-level cache region,
+ * of the query cache, and of the in-process caches of the service.
+ */
+@Component
+@Endpoint(id = "cachestats")
+public class CacheStatisticsEndpoint {
+
+    @PersistenceUnit
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserAuthTokenCache userAuthTokenCache;
+
+    @Autowired
+    private QuestionValidityCheckService questionValidityCheckService;
+
+    @ReadOperation
+    public Map<String, Object> cacheStatistics() {
+        final Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        final Map<String, Object> regions = new LinkedHashMap<>();
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            final SecondLevelCacheStatistics region = statistics.getSecondLevelCacheStatistics(regionName);
+            final Map<String, Object> regionStatistics = new LinkedHashMap<>();
+            regionStatistics.put("hits", region.getHitCount());
+            regionStatistics.put("misses", region.getMissCount());
+            regionStatistics.put("puts", region.getPutCount());
+            regionStatistics.put("hitRatio", hitRatio(region.getHitCount(), region.getMissCount()));
+            regions.put(regionName, regionStatistics);
+        }
+
+        final Map<String, Object> queryCache = new LinkedHashMap<>();
+        queryCache.put("hits", statistics.getQueryCacheHitCount());
+        queryCache.put("misses", statistics.getQueryCacheMissCount());
+        queryCache.put("puts", statistics.getQueryCachePutCount());
+        queryCache.put("hitRatio", hitRatio(statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount()));
+
+        final Map<String, Object> sessions = new LinkedHashMap<>();
+        sessions.put("size", userAuthTokenCache.getSize());
+        sessions.put("hits", userAuthTokenCache.getHits());
+        sessions.put("misses", userAuthTokenCache.getMisses());
+        sessions.put("evictions", userAuthTokenCache.getEvictions());
+        sessions.put("hitRatio", userAuthTokenCache.getHitRatio());
+        sessions.put("unknownTokenHits", userAuthTokenCache.getUnknownTokenHits());
+
+        final Map<String, Object> questions = new LinkedHashMap<>();
+        questions.put("size", questionValidityCheckService.getSize());
+        questions.put("hits", questionValidityCheckService.getHits());
+        questions.put("misses", questionValidityCheckService.getMisses());
+        questions.put("evictions", questionValidityCheckService.getEvictions());
+        questions.put("hitRatio", questionValidityCheckService.getHitRatio());
+        questions.put("unknownQuestionHits", questionValidityCheckService.getUnknownQuestionHits());
+
+        final Map<String, Object> cacheStatistics = new LinkedHashMap<>();
+        cacheStatistics.put("secondLevelCacheRegions", regions);
+        cacheStatistics.put("queryCache", queryCache);
+        cacheStatistics.put("sessionCache", sessions);
+        cacheStatistics.put("questionCache", questions);
+        return cacheStatistics;
+    }
+
+    private static double hitRatio(final long hits, final long misses) {
+        return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+    }
+}
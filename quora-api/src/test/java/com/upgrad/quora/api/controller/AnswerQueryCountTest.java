@@ -0,0 +1,120 @@
+package com.upgrad.quora.api.controller;
+
+import com.upgrad.quora.service.business.AnswerService;
+import com.upgrad.quora.service.dao.UserDao;
+import com.upgrad.quora.service.entity.UserAuthTokenEntity;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+//Counts the statements the answer endpoints prepare, against the fixtures of quora_test.sql, so that an association loaded
+//once per answer, or an entity loaded before a conditional statement, shows up as a failure. Every test runs in a
+//transaction rolled back at its end.
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("local")
+@Transactional
+
+public class AnswerQueryCountTest {
+
+    @Autowired
+    private AnswerService answerService;
+
+    @Autowired
+    private UserDao userDao;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+
+    @Before
+    public void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    //This test case passes when the answers listed with their question are read in one statement whatever their number.
+    @Test
+    public void getAllAnswersToQuestionReadsOneStatement() throws Exception {
+        addAnswers(3);
+
+        statistics.clear();
+        assertEquals(4, answerService.getAllAnswersToQuestion("database_question_uuid").size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    //This test case passes when a batch of questions is read in two statements whatever the number of questions and answers.
+    @Test
+    public void getQuestionsWithAnswersReadsTwoStatements() throws Exception {
+        addAnswers(3);
+
+        statistics.clear();
+        answerService.getQuestionsWithAnswers(Arrays.asList("database_question_uuid", "non_existing_question_uuid"), null);
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    //This test case passes when the owner edits an answer in one statement, without loading the answer nor its author.
+    @Test
+    public void editAnswerContentRunsOneStatement() throws Exception {
+        final UserAuthTokenEntity owner = getSession("database_accesstoken1");
+
+        statistics.clear();
+        answerService.editAnswerContent("database_answer_uuid", "edited_answer", null, owner);
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    //This test case passes when the owner deletes an answer in one statement, without loading the answer nor its author.
+    @Test
+    public void deleteAnswerByOwnerRunsOneStatement() throws Exception {
+        final UserAuthTokenEntity owner = getSession("database_accesstoken1");
+
+        statistics.clear();
+        answerService.deleteAnswer("database_answer_uuid", owner);
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    //This test case passes when an admin deletes the answer of another user in one statement.
+    @Test
+    public void deleteAnswerByAdminRunsOneStatement() throws Exception {
+        final UserAuthTokenEntity admin = getSession("database_accesstoken");
+
+        statistics.clear();
+        answerService.deleteAnswer("database_answer_uuid", admin);
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    //The session and its user are read before the statements are counted, as the authorization of the endpoint does
+    private UserAuthTokenEntity getSession(final String accessToken) {
+        final UserAuthTokenEntity userAuthTokenEntity = userDao.findUserAuthTokenEntityByAccessToken(accessToken);
+        userAuthTokenEntity.getUser().getRole();
+        return userAuthTokenEntity;
+    }
+
+    private void addAnswers(final int count) {
+        for (int i = 0; i < count; i++) {
+            entityManager.createNativeQuery("insert into answer(uuid, ans, date, user_id, question_id) "
+                    + "values (?1, 'query_count_answer', current_timestamp, 1026, 1024)")
+                    .setParameter(1, "query_count_answer_uuid" + i)
+                    .executeUpdate();
+        }
+        entityManager.flush();
+    }
+}
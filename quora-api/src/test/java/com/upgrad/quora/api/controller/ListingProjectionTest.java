@@ -0,0 +1,159 @@
+package com.upgrad.quora.api.controller;
+
+import com.upgrad.quora.service.dao.AnswerDao;
+import com.upgrad.quora.service.dao.QuestionListingDao;
+import com.upgrad.quora.service.entity.AnswerEntity;
+import com.upgrad.quora.service.entity.QuestionEntity;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+//Compares the projections the list endpoints read with the entities they used to load, against the fixtures of
+//quora_test.sql and rows added by the tests: statements, entities loaded, bytes allocated by the reading thread and rows
+//read per second. Every test runs in a transaction rolled back at its end.
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("local")
+@Transactional
+
+public class ListingProjectionTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ListingProjectionTest.class);
+
+    private static final int ROWS = 50;
+
+    private static final int ROUNDS = 20;
+
+    @Autowired
+    private QuestionListingDao questionListingDao;
+
+    @Autowired
+    private AnswerDao answerDao;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+
+    @Before
+    public void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        for (int i = 0; i < ROWS; i++) {
+            entityManager.createNativeQuery("insert into question(uuid, content, date, user_id) "
+                    + "values (?1, 'projection_question', current_timestamp, 1026)")
+                    .setParameter(1, "projection_question_uuid" + i)
+                    .executeUpdate();
+            entityManager.createNativeQuery("insert into answer(uuid, ans, date, user_id, question_id) "
+                    + "values (?1, 'projection_answer', current_timestamp, 1026, 1024)")
+                    .setParameter(1, "projection_answer_uuid" + i)
+                    .executeUpdate();
+        }
+        entityManager.flush();
+    }
+
+    //This test case passes when a page of questions is read in one statement, loading no entity, and allocating less than
+    //the page of QuestionEntity it replaces.
+    @Test
+    public void questionPageProjectionIsCheaperThanEntities() {
+        final Measurement projection = measure("question page projection",
+                () -> questionListingDao.getQuestions(null, ROWS));
+        final Measurement entities = measure("question page entities",
+                () -> entityManager.createQuery("select q from QuestionEntity q order by q.date desc, q.id desc",
+                        QuestionEntity.class).setMaxResults(ROWS).getResultList());
+
+        assertCheaper(projection, entities);
+    }
+
+    //This test case passes when the answers of a question are read with the question in one statement, loading no entity,
+    //and allocating less than the AnswerEntity list and the question they replace.
+    @Test
+    public void answerListingProjectionIsCheaperThanEntities() {
+        final Measurement projection = measure("answer listing projection",
+                () -> answerDao.getAnswersWithQuestion("database_question_uuid"));
+        final Measurement entities = measure("answer listing entities", () -> {
+            final List<AnswerEntity> answers = answerDao.getAllAnswers("database_question_uuid");
+            for (AnswerEntity answer : answers) {
+                answer.getQuestion().getContent();
+            }
+            return answers;
+        });
+
+        assertCheaper(projection, entities);
+    }
+
+    private static void assertCheaper(final Measurement projection, final Measurement entities) {
+        assertTrue(projection.rows >= ROWS);
+        assertEquals(projection.rows, entities.rows);
+        assertEquals(1, projection.statements);
+        assertEquals(0, projection.entitiesLoaded);
+        assertTrue(projection.statements <= entities.statements);
+        assertTrue("projection allocated " + projection.bytes + " bytes, entities " + entities.bytes,
+                projection.bytes < entities.bytes);
+    }
+
+    //Every round starts from an empty persistence context and second-level cache, as a request would
+    private Measurement measure(final String name, final Supplier<List<?>> read) {
+        final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final long threadId = Thread.currentThread().getId();
+        // Warm-up round, also counted once for statements and loaded entities
+        entityManager.clear();
+        entityManagerFactory.getCache().evictAll();
+        statistics.clear();
+        final int rows = read.get().size();
+        final long statements = statistics.getPrepareStatementCount();
+        final long entitiesLoaded = statistics.getEntityLoadCount();
+
+        long bytes = 0;
+        long nanos = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            entityManager.clear();
+            entityManagerFactory.getCache().evictAll();
+            final long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+            final long nanosBefore = System.nanoTime();
+            read.get();
+            nanos += System.nanoTime() - nanosBefore;
+            bytes += threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+        }
+        final Measurement measurement = new Measurement(rows, statements, entitiesLoaded, bytes / ROUNDS);
+        LOGGER.info("{}: {} rows, {} statements, {} entities loaded, {} bytes allocated, {} rows/s", name, rows, statements,
+                entitiesLoaded, measurement.bytes, nanos == 0 ? 0 : (long) rows * ROUNDS * 1_000_000_000L / nanos);
+        return measurement;
+    }
+
+    private static final class Measurement {
+        private final int rows;
+        private final long statements;
+        private final long entitiesLoaded;
+        private final long bytes;
+
+        private Measurement(int rows, long statements, long entitiesLoaded, long bytes) {
+            this.rows = rows;
+            this.statements = statements;
+            this.entitiesLoaded = entitiesLoaded;
+            this.bytes = bytes;
+        }
+    }
+}
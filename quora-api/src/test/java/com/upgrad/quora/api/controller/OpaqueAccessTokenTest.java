@@ -0,0 +1,72 @@
+package com.upgrad.quora.api.controller;
+
+import com.upgrad.quora.service.common.OpaqueAccessToken;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//Signs a user in with an opaque access token, of which user_auth only holds the digest, and checks that the digest read from
+//user_auth is refused in place of the token. Every test runs in a transaction rolled back at its end.
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("local")
+@Transactional
+
+public class OpaqueAccessTokenTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String accessToken;
+
+    private String storedAccessToken;
+
+    @Before
+    public void setUp() {
+        accessToken = OpaqueAccessToken.generate();
+        storedAccessToken = OpaqueAccessToken.toLookupKey(accessToken);
+        jdbcTemplate.update("insert into user_auth(uuid, user_id, access_token, expires_at, login_at) "
+                + "values ('opaque_token_uuid', 1025, ?, current_timestamp + interval '1 hour', current_timestamp)", storedAccessToken);
+    }
+
+    //This test case passes when the opaque access token itself is accepted.
+    @Test
+    public void opaqueAccessTokenIsAccepted() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/question/all").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", accessToken))
+                .andExpect(status().isOk());
+    }
+
+    //This test case passes when the digest stored in user_auth is refused as an access token.
+    @Test
+    public void storedDigestIsRefused() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/question/all").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", storedAccessToken))
+                .andExpect(status().isForbidden())
+                .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-001"));
+    }
+
+    //This test case passes when the digest without its prefix, as stored before the prefix, is refused as an access token.
+    @Test
+    public void unprefixedDigestIsRefused() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/question/all").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE)
+                .header("authorization", storedAccessToken.substring(OpaqueAccessToken.DIGEST_PREFIX.length())))
+                .andExpect(status().isForbidden())
+                .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-001"));
+    }
+}
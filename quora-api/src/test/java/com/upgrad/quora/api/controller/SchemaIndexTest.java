@@ -0,0 +1,317 @@
+package com.upgrad.quora.api.controller;
+
+import com.upgrad.quora.service.common.KeysetCursor;
+import com.upgrad.quora.service.dao.AnswerDao;
+import com.upgrad.quora.service.dao.QuestionListingDao;
+import com.upgrad.quora.service.dao.QuestionMutationDao;
+import com.upgrad.quora.service.dao.UserAuthDao;
+import com.upgrad.quora.service.dao.UserCredentialDao;
+import com.upgrad.quora.service.dao.UserDao;
+import com.upgrad.quora.service.dao.UserIdentityDao;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+//Checks with EXPLAIN that the statements of the DAOs are served by the indexes of the migrations, applied at the start of
+//the context. Every DAO method is called as the application calls it, and the statements it sends through the data source
+//are recorded with their parameters and explained as they were sent. The fixture tables are so small that a sequential
+//scan would always be cheapest, so sequential scans are disabled for the transaction of each test: the planner then only
+//falls back to one when no index can serve the statement. Every test runs in a transaction rolled back at its end.
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("local")
+@Transactional
+
+public class SchemaIndexTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private StatementRecorder statementRecorder;
+
+    @Autowired
+    private QuestionListingDao questionListingDao;
+
+    @Autowired
+    private QuestionMutationDao questionMutationDao;
+
+    @Autowired
+    private AnswerDao answerDao;
+
+    @Autowired
+    private UserAuthDao userAuthDao;
+
+    @Autowired
+    private UserIdentityDao userIdentityDao;
+
+    @Autowired
+    private UserCredentialDao userCredentialDao;
+
+    @Autowired
+    private UserDao userDao;
+
+    @Before
+    public void setUp() {
+        jdbcTemplate.execute("set local enable_seqscan = off");
+        // Statements answered from the second-level or query cache would not reach the data source
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    //This test case passes when the first and the next pages of questions are read in order from the listing index.
+    @Test
+    public void questionPagesUseIndex() throws Exception {
+        assertUsesIndexes(() -> questionListingDao.getQuestions(null, 10), "idx_question_date_id");
+        final KeysetCursor cursor = KeysetCursor.decode(KeysetCursor.encode(ZonedDateTime.now(), 1024));
+        assertUsesIndexes(() -> questionListingDao.getQuestions(cursor, 10), "idx_question_date_id");
+    }
+
+    //This test case passes when the user is found by uuid and the questions of the user are read in order from the listing
+    //index of the user.
+    @Test
+    public void questionPagesByUserUseIndexes() throws Exception {
+        assertUsesIndexes(() -> questionListingDao.getQuestionsByUser("database_uuid1", null, 10),
+                "ux_users_uuid", "idx_question_user_id_date_id");
+    }
+
+    //This test case passes when questions are found by id, by uuid and by user through indexes.
+    @Test
+    public void questionLookupsUseIndexes() throws Exception {
+        assertUsesIndexes(() -> questionListingDao.getQuestionsById(Arrays.asList(1024, 1025)), "question_pkey");
+        assertUsesIndexes(() -> questionListingDao.getQuestionsByUuid(Collections.singletonList("database_question_uuid")),
+                "ux_question_uuid");
+        assertUsesIndexes(() -> questionListingDao.getQuestionIdsOfUser(1026), "idx_question_user_id_date_id");
+    }
+
+    //This test case passes when the conditional edit and delete of a question and their probes find it by uuid.
+    @Test
+    public void questionMutationsUseIndex() throws Exception {
+        assertUsesIndexes(() -> questionMutationDao.updateContent("database_question_uuid", "edited", 1026, 0),
+                "ux_question_uuid");
+        assertUsesIndexes(() -> questionMutationDao.findVersionedRow("database_question_uuid"), "ux_question_uuid");
+        assertUsesIndexes(() -> questionMutationDao.exists("database_question_uuid"), "ux_question_uuid");
+        assertUsesIndexes(() -> questionMutationDao.delete("database_question_uuid", 1026, false), "ux_question_uuid");
+    }
+
+    //This test case passes when the answers of a question, alone or in a batch, are read in order from the index on the
+    //question after the question is found by uuid.
+    @Test
+    public void answerListingsUseIndexes() throws Exception {
+        assertUsesIndexes(() -> answerDao.getAnswersWithQuestion("database_question_uuid"),
+                "ux_question_uuid", "idx_answer_question_id_date_id");
+        assertUsesIndexes(() -> answerDao.getAnswersToQuestions(Collections.singletonList("database_question_uuid"), 10),
+                "ux_question_uuid", "idx_answer_question_id_date_id");
+    }
+
+    //This test case passes when the lookup, the conditional edit and delete of an answer and their probes find it by uuid.
+    @Test
+    public void answerLookupsAndMutationsUseIndex() throws Exception {
+        assertUsesIndexes(() -> answerDao.getAnswerById("database_answer_uuid"), "ux_answer_uuid");
+        assertUsesIndexes(() -> answerDao.updateAnswerContent("database_answer_uuid", "edited", 1026, 0), "ux_answer_uuid");
+        assertUsesIndexes(() -> answerDao.findVersionedRow("database_answer_uuid"), "ux_answer_uuid");
+        assertUsesIndexes(() -> answerDao.existsAnswer("database_answer_uuid"), "ux_answer_uuid");
+        assertUsesIndexes(() -> answerDao.deleteAnswer("database_answer_uuid", 1026, false), "ux_answer_uuid");
+    }
+
+    //This test case passes when the session of an access token, and the sessions to purge or to revoke, are found through
+    //indexes.
+    @Test
+    public void sessionQueriesUseIndexes() throws Exception {
+        final Timestamp cutoff = new Timestamp(System.currentTimeMillis());
+        assertUsesIndexes(() -> userDao.findUserAuthTokenEntityByAccessToken("database_accesstoken"),
+                "idx_user_auth_access_token");
+        assertUsesIndexes(() -> userAuthDao.getPurgeableIds(0, cutoff, 100));
+        assertUsesIndexes(() -> userAuthDao.deletePurgeable(1024, 2048, cutoff));
+        assertUsesIndexes(() -> userAuthDao.getSignedOutUnexpiredTokens());
+    }
+
+    //This test case passes when users are found by username, email and uuid through their unique indexes.
+    @Test
+    public void userLookupsUseIndexes() throws Exception {
+        assertUsesIndexes(() -> userIdentityDao.findTaken("database_username", "database_email"),
+                "users_username_key", "users_email_key");
+        assertUsesIndexes(() -> userIdentityDao.findTakenUserNames(Arrays.asList("database_username", "new_username")),
+                "users_username_key");
+        assertUsesIndexes(() -> userIdentityDao.findTakenEmails(Arrays.asList("database_email", "new_email")),
+                "users_email_key");
+        assertUsesIndexes(() -> userDao.findUserByUserName("database_username"), "users_username_key");
+        assertUsesIndexes(() -> userDao.findUserByEmail("database_email"), "users_email_key");
+        assertUsesIndexes(() -> userDao.findUserByUUID("database_uuid"), "ux_users_uuid");
+        assertUsesIndexes(() -> userCredentialDao.updateCredentials("database_uuid", "password", "salt"), "ux_users_uuid");
+    }
+
+    //Runs the DAO call, then explains every statement it sent: none may scan a table sequentially, and every index named
+    //must appear in the plan of one of them
+    private void assertUsesIndexes(final DaoCall call, final String... indexes) throws Exception {
+        statementRecorder.clear();
+        call.run();
+        final List<RecordedStatement> statements = statementRecorder.getStatements();
+        assertFalse("No statement was sent", statements.isEmpty());
+
+        final StringBuilder plans = new StringBuilder();
+        for (RecordedStatement statement : statements) {
+            final String plan = explain(statement);
+            assertFalse("Sequential scan in the plan of " + statement.sql + ":\n" + plan, plan.contains("Seq Scan"));
+            plans.append(statement.sql).append('\n').append(plan).append('\n');
+        }
+        for (String index : indexes) {
+            assertTrue("Expected " + index + " in the plans of:\n" + plans, plans.toString().toLowerCase().contains(index));
+        }
+    }
+
+    private String explain(final RecordedStatement statement) {
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (PreparedStatement explain = connection.prepareStatement("explain " + statement.sql)) {
+                for (Map.Entry<Integer, Object> parameter : statement.parameters.entrySet()) {
+                    if (parameter.getValue() == null) {
+                        explain.setNull(parameter.getKey(), Types.NULL);
+                    } else {
+                        explain.setObject(parameter.getKey(), parameter.getValue());
+                    }
+                }
+                final List<String> lines = new ArrayList<>();
+                try (ResultSet resultSet = explain.executeQuery()) {
+                    while (resultSet.next()) {
+                        lines.add(resultSet.getString(1));
+                    }
+                }
+                return String.join("\n", lines);
+            }
+        });
+    }
+
+    private interface DaoCall {
+        void run() throws Exception;
+    }
+
+    private static final class RecordedStatement {
+        private final String sql;
+        private final Map<Integer, Object> parameters;
+
+        private RecordedStatement(String sql, Map<Integer, Object> parameters) {
+            this.sql = sql;
+            this.parameters = parameters;
+        }
+    }
+
+    //Records the statements executed through the data source of the application, with the parameters bound to them; the
+    //EXPLAIN statements of the test go through it as well, so the recorded ones are copied before any is explained
+    static final class StatementRecorder {
+
+        private final List<RecordedStatement> statements = Collections.synchronizedList(new ArrayList<>());
+
+        void clear() {
+            statements.clear();
+        }
+
+        List<RecordedStatement> getStatements() {
+            synchronized (statements) {
+                return new ArrayList<>(statements);
+            }
+        }
+
+        DataSource wrap(final DataSource dataSource) {
+            return new DelegatingDataSource(dataSource) {
+                @Override
+                public Connection getConnection() throws SQLException {
+                    return recording(super.getConnection());
+                }
+
+                @Override
+                public Connection getConnection(String username, String password) throws SQLException {
+                    return recording(super.getConnection(username, password));
+                }
+            };
+        }
+
+        private Connection recording(final Connection connection) {
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        final Object result = invoke(connection, method, args);
+                        if ("prepareStatement".equals(method.getName())) {
+                            return recording((PreparedStatement) result, (String) args[0]);
+                        }
+                        return result;
+                    });
+        }
+
+        private PreparedStatement recording(final PreparedStatement statement, final String sql) {
+            final Map<Integer, Object> parameters = new TreeMap<>();
+            return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                        final String name = method.getName();
+                        if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                            parameters.put((Integer) args[0], "setNull".equals(name) ? null : args[1]);
+                        } else if (name.startsWith("execute") || "addBatch".equals(name)) {
+                            statements.add(new RecordedStatement(sql, new TreeMap<>(parameters)));
+                        }
+                        return invoke(statement, method, args);
+                    });
+        }
+
+        private static Object invoke(final Object target, final Method method, final Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    @TestConfiguration
+    static class StatementRecorderConfiguration {
+
+        private static final StatementRecorder STATEMENT_RECORDER = new StatementRecorder();
+
+        @Bean
+        StatementRecorder statementRecorder() {
+            return STATEMENT_RECORDER;
+        }
+
+        @Bean
+        static BeanPostProcessor recordingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource ? STATEMENT_RECORDER.wrap((DataSource) bean) : bean;
+                }
+            };
+        }
+    }
+}
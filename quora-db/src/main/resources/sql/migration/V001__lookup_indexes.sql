@@ -0,0 +1,25 @@
+--Indexes for every lookup by uuid, by access token and along the foreign keys.
+--Built concurrently so that the tables stay writable while they are built: every statement runs in its own transaction
+--(autocommit), and IF NOT EXISTS makes the migration safe to run again on a database where it was already applied.
+CREATE TABLE IF NOT EXISTS SCHEMA_VERSION(version INTEGER PRIMARY KEY, description VARCHAR(200) NOT NULL, installed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP);
+
+--USERS: users are looked up by uuid; userName and email are already indexed by their UNIQUE constraints
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS UX_USERS_UUID ON USERS(uuid);
+
+--USER_AUTH: the access token is looked up on every request, sessions are listed by user
+CREATE INDEX CONCURRENTLY IF NOT EXISTS IDX_USER_AUTH_UUID ON USER_AUTH(uuid);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS IDX_USER_AUTH_ACCESS_TOKEN ON USER_AUTH(ACCESS_TOKEN);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS IDX_USER_AUTH_USER_ID ON USER_AUTH(USER_ID);
+
+--QUESTION: questions are looked up by uuid; the listing index on (user_id, date, id) also serves the user_id foreign key
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS UX_QUESTION_UUID ON QUESTION(uuid);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS IDX_QUESTION_DATE_ID ON QUESTION(date, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS IDX_QUESTION_USER_ID_DATE_ID ON QUESTION(user_id, date, id);
+
+--ANSWER: answers are looked up by uuid and listed per question in (date, id) order, which also serves the question_id
+--foreign key and the cascaded delete of a question
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS UX_ANSWER_UUID ON ANSWER(uuid);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS IDX_ANSWER_QUESTION_ID_DATE_ID ON ANSWER(question_id, date, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS IDX_ANSWER_USER_ID ON ANSWER(user_id);
+
+INSERT INTO SCHEMA_VERSION(version, description) VALUES (1, 'lookup indexes') ON CONFLICT (version) DO NOTHING;
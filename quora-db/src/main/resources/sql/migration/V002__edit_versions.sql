@@ -0,0 +1,8 @@
+--VERSION column of QUESTION and ANSWER, incremented by every edit and compared with If-Match, for databases created before
+--quora.sql defined it. Adding a column with a constant default does not rewrite the table.
+CREATE TABLE IF NOT EXISTS SCHEMA_VERSION(version INTEGER PRIMARY KEY, description VARCHAR(200) NOT NULL, installed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP);
+
+ALTER TABLE QUESTION ADD COLUMN IF NOT EXISTS version INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE ANSWER ADD COLUMN IF NOT EXISTS version INTEGER NOT NULL DEFAULT 0;
+
+INSERT INTO SCHEMA_VERSION(version, description) VALUES (2, 'edit versions') ON CONFLICT (version) DO NOTHING;
@@ -0,0 +1,7 @@
+--Digests of opaque access tokens stored before they had the sha256: prefix. Access tokens of the stored shape are refused,
+--so these sessions would otherwise no longer be found by their tokens.
+CREATE TABLE IF NOT EXISTS SCHEMA_VERSION(version INTEGER PRIMARY KEY, description VARCHAR(200) NOT NULL, installed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP);
+
+UPDATE USER_AUTH SET ACCESS_TOKEN = 'sha256:' || ACCESS_TOKEN WHERE ACCESS_TOKEN ~ '^[0-9a-f]{64}$';
+
+INSERT INTO SCHEMA_VERSION(version, description) VALUES (3, 'access token digest prefix') ON CONFLICT (version) DO NOTHING;
@@ -0,0 +1,9 @@
+--Indexes the session purge and the revocation of signed out sessions filter on, created by quora.sql but missing from the
+--databases built before them. Built concurrently, each statement in its own transaction, like the lookup indexes of V001.
+CREATE TABLE IF NOT EXISTS SCHEMA_VERSION(version INTEGER PRIMARY KEY, description VARCHAR(200) NOT NULL, installed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP);
+
+--USER_AUTH: expired sessions are purged by expiry, signed out sessions by logout
+CREATE INDEX CONCURRENTLY IF NOT EXISTS IDX_USER_AUTH_EXPIRES_AT ON USER_AUTH(EXPIRES_AT);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS IDX_USER_AUTH_LOGOUT_AT ON USER_AUTH(LOGOUT_AT);
+
+INSERT INTO SCHEMA_VERSION(version, description) VALUES (4, 'session purge indexes') ON CONFLICT (version) DO NOTHING;
@@ -1,15 +1,38 @@
 package com.upgrad.quora.service;
 
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 
 /**
  * Enabling the component scan and entity scan of classes in the below mentioned "com.upgrad.quora.service" and "com.upgrad.quora.service.entity" packages respectively.
+ * Scheduling is enabled for the periodic housekeeping of the in-memory auth structures, on a pool of one thread per job so
+ * that a long session purge does not hold up the session flush nor the other jobs, as a single shared thread would.
+ * The entity manager factory waits for the schema migrations, so that no entity is read before the columns it maps exist,
+ * such as the VERSION of ANSWER behind the @Version of AnswerEntity.
  */
 @Configuration
+@EnableScheduling
 @ComponentScan("com.upgrad.quora.service")
 @EntityScan("com.upgrad.quora.service.entity")
 public class ServiceConfiguration {
+
+    @Bean
+    public static EntityManagerFactoryDependsOnPostProcessor entityManagerFactoryDependsOnSchemaMigration() {
+        return new EntityManagerFactoryDependsOnPostProcessor("schemaMigrationRunner");
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolTaskScheduler taskScheduler(@Value("${quora.scheduling.pool-size:4}") final int poolSize) {
+        ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+        taskScheduler.setPoolSize(poolSize);
+        taskScheduler.setThreadNamePrefix("quora-scheduling-");
+        return taskScheduler;
+    }
 }
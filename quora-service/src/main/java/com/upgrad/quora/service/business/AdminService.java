@@ -1,6 +1,9 @@
 package com.upgrad.quora.service.business;
 
+import com.upgrad.quora.service.dao.QuestionListingDao;
 import com.upgrad.quora.service.dao.UserDao;
+import com.upgrad.quora.service.entity.AnswerEntity;
+import com.upgrad.quora.service.entity.QuestionEntity;
 import com.upgrad.quora.service.entity.UserEntity;
 import com.upgrad.quora.service.exception.UserNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,6 +21,21 @@ public class AdminService {
     @Autowired
     UserService userService;
 
+    @Autowired
+    EntityCacheEviction entityCacheEviction;
+
+    @Autowired
+    QuestionValidityCheckService questionValidityCheckService;
+
+    @Autowired
+    UserAuthTokenCache userAuthTokenCache;
+
+    @Autowired
+    QuestionListingDao questionListingDao;
+
+    @Autowired
+    QuestionSearchIndex questionSearchIndex;
+
     /**
      * Method to deletes a user by UUID
      *
@@ -38,7 +56,16 @@ public class AdminService {
         } else {
 
             String id = userEntity.getUuid();
+            // Read before the cascade deletes them, and dropped from the search index once the delete commits
+            for (Integer questionId : questionListingDao.getQuestionIdsOfUser(userEntity.getId())) {
+                questionSearchIndex.remove(questionId);
+            }
             userDao.deleteUserByUUID(uuid);
+            // The questions and answers of the user are deleted by ON DELETE CASCADE, behind the back of the caches
+            entityCacheEviction.evictAfterCommit(QuestionEntity.class, AnswerEntity.class);
+            questionValidityCheckService.invalidateAll();
+            // So are the sessions of the user, which would otherwise stay authenticated until they leave the cache
+            userAuthTokenCache.invalidateUser(userEntity.getId());
             return id;
         }
     }
@@ -2,21 +2,34 @@ package com.upgrad.quora.service.business;
 
 import com.upgrad.quora.service.common.EndPointIdentifier;
 import com.upgrad.quora.service.dao.AnswerDao;
+import com.upgrad.quora.service.dao.AnswerSummary;
+import com.upgrad.quora.service.dao.ListingStreamDao;
 import com.upgrad.quora.service.dao.QuestionDao;
+import com.upgrad.quora.service.dao.QuestionListingDao;
+import com.upgrad.quora.service.dao.QuestionSummary;
 import com.upgrad.quora.service.dao.UserDao;
+import com.upgrad.quora.service.dao.VersionedRow;
 import com.upgrad.quora.service.entity.AnswerEntity;
-import com.upgrad.quora.service.entity.QuestionEntity;
 import com.upgrad.quora.service.entity.UserAuthTokenEntity;
+import com.upgrad.quora.service.entity.UserEntity;
 import com.upgrad.quora.service.exception.AuthorizationFailedException;
 import com.upgrad.quora.service.exception.InvalidAnswerException;
+import com.upgrad.quora.service.exception.InvalidBatchException;
 import com.upgrad.quora.service.exception.InvalidQuestionException;
+import com.upgrad.quora.service.exception.PreconditionFailedException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 
 @Service
@@ -35,7 +48,19 @@ public class AnswerService implements EndPointIdentifier {
     QuestionValidityCheckService questionValidityCheckService;
 
     @Autowired
-    UserAuthTokenValidifierService userAuthTokenValidifierService;
+    ListingStreamDao listingStreamDao;
+
+    @Autowired
+    QuestionListingDao questionListingDao;
+
+    @Autowired
+    EntityCacheEviction entityCacheEviction;
+
+    @Value("${quora.batch.max-questions:100}")
+    private int maxBatchQuestions;
+
+    @Value("${quora.batch.max-answers-per-question:10}")
+    private int maxBatchAnswersPerQuestion;
 
     /**
      * Method to create a new user.
@@ -55,95 +80,160 @@ public class AnswerService implements EndPointIdentifier {
     }
 
 
-    @Transactional(propagation = Propagation.REQUIRED)
-    public AnswerEntity checkAnswer(String answerId, String accessToken) throws AuthorizationFailedException, InvalidAnswerException {
-        UserAuthTokenEntity userAuthTokenEntity = userDao.findUserAuthTokenEntityByAccessToken(accessToken);
-
-        AnswerEntity existingAnswerEntity = null;
-
-        if (userAuthTokenValidifierService.userAuthTokenValidityCheck(accessToken, CHECK_ANSWER)) {
+    /**
+     * Method to edit the content of an answer in a single statement that only matches an answer of the signed in user.
+     * When the client sent the version it read, the statement also only matches that version, so that a concurrent edit
+     * is not overwritten. Why nothing was edited is only looked up when nothing was edited.
+     *
+     * @param answerId            uuid of the answer to be edited
+     * @param content             new content of the answer
+     * @param expectedVersion     version of the answer the edit is based on, or null to edit whatever the version
+     * @param userAuthTokenEntity session of the signed in user, already authorized for the endpoint
+     * @return new version of the edited answer
+     * @throws AuthorizationFailedException
+     * @throws InvalidAnswerException
+     * @throws PreconditionFailedException in cases where the answer was changed since the expected version
+     */
 
-            String user_id = userAuthTokenEntity.getUser().getUuid();
+    @Transactional(propagation = Propagation.REQUIRED)
+    public Integer editAnswerContent(String answerId, String content, Integer expectedVersion, UserAuthTokenEntity userAuthTokenEntity)
+            throws AuthorizationFailedException, InvalidAnswerException, PreconditionFailedException {
 
+        Integer userId = userAuthTokenEntity.getUser().getId();
 
-            AnswerEntity answerEntity = answerDao.getAnswerById(answerId);
+        VersionedRow edited = answerDao.updateAnswerContent(answerId, content, userId, expectedVersion);
 
-            if (existingAnswerEntity == null) {
+        if (edited == null) {
+            VersionedRow current = answerDao.findVersionedRow(answerId);
+            if (current == null) {
                 throw new InvalidAnswerException("ANS-001", "Entered answer uuid does not exist");
-            } else if (!user_id.equals(existingAnswerEntity.getUuid())) {
+            }
+            if (!current.getUserId().equals(userId)) {
                 throw new AuthorizationFailedException("ATHR-003", "Only the answer owner can edit the answer");
-            } else {
-                existingAnswerEntity = answerEntity;
             }
+            throw new PreconditionFailedException("VER-001",
+                    "The answer was changed by another request, current version is " + current.getVersion());
         }
-        return existingAnswerEntity;
-    }
-
-
-    @Transactional(propagation = Propagation.REQUIRED)
-    public AnswerEntity updateAnswer(AnswerEntity answerEntity) {
-        return answerDao.updateAnswer(answerEntity);
+        // The native statement bypasses the automatic invalidation of the answer cache region
+        entityCacheEviction.evictAfterCommit(AnswerEntity.class, edited.getId());
+        return edited.getVersion();
     }
 
     /**
-     * @param answerId
-     * @param accessToken
-     * @return
+     * @param answerId            uuid of the answer to be deleted
+     * @param userAuthTokenEntity session of the signed in user, already authorized for the endpoint
+     * @return uuid of the deleted answer
      * @throws AuthorizationFailedException
      * @throws InvalidAnswerException
      */
 
     @Transactional(propagation = Propagation.REQUIRED)
-    public String deleteAnswer(String answerId, String accessToken) throws AuthorizationFailedException, InvalidAnswerException {
-        UserAuthTokenEntity userAuthTokenEntity = userDao.findUserAuthTokenEntityByAccessToken(accessToken);
-        String deletedAnswerId = null;
-
-        if (userAuthTokenValidifierService.userAuthTokenValidityCheck(accessToken, DELETE_ANSWER)) {
+    public String deleteAnswer(String answerId, UserAuthTokenEntity userAuthTokenEntity) throws AuthorizationFailedException, InvalidAnswerException {
 
-            String user_id = userAuthTokenEntity.getUser().getUuid();
+        UserEntity user = userAuthTokenEntity.getUser();
 
-
-            AnswerEntity existingAnswerEntity = answerDao.getAnswerById(answerId);
-
-            if (existingAnswerEntity == null) {
+        // One conditional statement, the answer is neither loaded nor compared in Java
+        if (answerDao.deleteAnswer(answerId, user.getId(), "admin".equals(user.getRole())) == 0) {
+            if (!answerDao.existsAnswer(answerId)) {
                 throw new InvalidAnswerException("ANS-001", "Entered answer uuid does not exist");
-            } else if ((!user_id.equals(existingAnswerEntity.getUuid())) || (!userAuthTokenEntity.getUser().getRole().equals("admin"))) {
-                throw new AuthorizationFailedException("ATHR-003", "Only the answer owner or admin can delete the answer");
-            } else {
-                answerDao.deleteAnswerByUUID(answerId);
-                deletedAnswerId = answerId;
             }
+            throw new AuthorizationFailedException("ATHR-003", "Only the answer owner or admin can delete the answer");
         }
-
-        return deletedAnswerId;
-
+        return answerId;
     }
 
     /**
      * Method to get all answers to the question
      *
-     * @param accessToken access token assigned to user upon signup
-     * @param questionId  the uuid of the question
-     * @return
-     * @throws AuthorizationFailedException
+     * @param questionId the uuid of the question
+     * @return List<AnswerSummary> list of all the answers to the question, together with the content of the question
      * @throws InvalidQuestionException
      */
 
-    public List<AnswerEntity> getAllAnswersToQuestion(String accessToken, String questionId) throws AuthorizationFailedException, InvalidQuestionException {
+    @Transactional(propagation = Propagation.REQUIRED, readOnly = true)
+    public List<AnswerSummary> getAllAnswersToQuestion(String questionId) throws InvalidQuestionException {
+
+        // One statement for the question and its answers, no row at all means the question does not exist
+        List<AnswerSummary> answers = answerDao.getAnswersWithQuestion(questionId);
 
-        List<AnswerEntity> answerEntityList = new ArrayList<>();
+        if (answers == null) {
+            throw new InvalidQuestionException("QUES-001", "The question with entered uuid whose details are to be seen does not exist");
+        } else {
+            return answers;
+        }
+    }
+
+    /**
+     * Method to get several questions with their first answers, in two statements whatever the number of questions
+     *
+     * @param questionIds uuids of the questions; duplicates are ignored
+     * @param answerLimit requested number of answers per question, or null for the maximum; capped at the configured maximum
+     * @return List<QuestionWithAnswers> the questions that exist, in the order of questionIds, with their first answers
+     * @throws InvalidBatchException in cases where questionIds is missing or holds no uuid, or more questions are asked than
+     * the configured maximum
+     */
+
+    @Transactional(propagation = Propagation.REQUIRED, readOnly = true)
+    public List<QuestionWithAnswers> getQuestionsWithAnswers(List<String> questionIds, Integer answerLimit) throws InvalidBatchException {
 
-        if (userAuthTokenValidifierService.userAuthTokenValidityCheck(accessToken, GET_ALL_ANSWERS)) {
+        if (questionIds == null || questionIds.contains(null)) {
+            throw new InvalidBatchException("BAT-002", "questionIds must be a list of question uuids");
+        }
+        Set<String> uuids = new LinkedHashSet<>(questionIds);
+        if (uuids.size() > maxBatchQuestions) {
+            throw new InvalidBatchException("BAT-001", "At most " + maxBatchQuestions + " questions can be fetched at once");
+        }
+        if (uuids.isEmpty()) {
+            return new ArrayList<>();
+        }
 
-            QuestionEntity questionEntity = questionValidityCheckService.checkQuestionIsValid(questionId);
+        Map<String, QuestionSummary> questionsByUuid = new HashMap<>();
+        for (QuestionSummary question : questionListingDao.getQuestionsByUuid(uuids)) {
+            questionsByUuid.put(question.getUuid(), question);
+        }
+        Map<String, List<AnswerSummary>> answersByQuestion = new HashMap<>();
+        if (!questionsByUuid.isEmpty()) {
+            int limit = answerLimit == null || answerLimit < 1 ? maxBatchAnswersPerQuestion
+                    : Math.min(answerLimit, maxBatchAnswersPerQuestion);
+            for (AnswerSummary answer : answerDao.getAnswersToQuestions(questionsByUuid.keySet(), limit)) {
+                answersByQuestion.computeIfAbsent(answer.getQuestionUuid(), uuid -> new ArrayList<>()).add(answer);
+            }
+        }
 
-            if (questionEntity == null) {
-                throw new InvalidQuestionException("QUES-001", "The question with entered uuid whose details are to be seen does not exist");
-            } else {
-                answerEntityList = answerDao.getAllAnswersToQuestion(questionEntity);
+        List<QuestionWithAnswers> questionsWithAnswers = new ArrayList<>(questionsByUuid.size());
+        for (String uuid : uuids) {
+            QuestionSummary question = questionsByUuid.get(uuid);
+            if (question != null) {
+                questionsWithAnswers.add(new QuestionWithAnswers(question,
+                        answersByQuestion.getOrDefault(uuid, new ArrayList<>())));
             }
         }
-        return answerEntityList;
+        return questionsWithAnswers;
+    }
+
+    /**
+     * Method to check that a question exists before its answers are streamed, so that the error can still be reported.
+     *
+     * @param questionId uuid of the question
+     * @throws InvalidQuestionException
+     */
+
+    @Transactional(propagation = Propagation.REQUIRED, readOnly = true)
+    public void checkQuestionExists(String questionId) throws InvalidQuestionException {
+
+        questionValidityCheckService.checkQuestionIsValid(questionId);
+    }
+
+    /**
+     * Method to stream all the answers to a question through a database cursor, without holding them in memory
+     *
+     * @param questionId uuid of the question
+     * @param consumer   called with every answer, together with the content of the question
+     */
+
+    @Transactional(propagation = Propagation.REQUIRED, readOnly = true)
+    public void streamAllAnswersToQuestion(String questionId, Consumer<AnswerSummary> consumer) {
 
+        listingStreamDao.forEachAnswerToQuestion(questionId, consumer);
     }
 }
@@ -1,15 +1,22 @@
 package com.upgrad.quora.service.business;
 
+import com.upgrad.quora.service.common.OpaqueAccessToken;
+import com.upgrad.quora.service.dao.UserAuthDao;
+import com.upgrad.quora.service.dao.UserCredentialDao;
 import com.upgrad.quora.service.dao.UserDao;
 import com.upgrad.quora.service.entity.UserAuthTokenEntity;
 import com.upgrad.quora.service.entity.UserEntity;
 import com.upgrad.quora.service.exception.AuthenticationFailedException;
+import com.upgrad.quora.service.exception.TooManyRequestsException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 
 @Service
@@ -18,47 +25,148 @@ public class AuthenticationService {
     @Autowired
     private UserDao userDao;
 
+    @Autowired
+    private UserAuthDao userAuthDao;
+
+    @Autowired
+    private UserCredentialDao userCredentialDao;
+
+    @Autowired
+    private PasswordCryptographyProvider passwordCryptographyProvider;
+
+    @Autowired
+    private JwtSigningKeyProvider jwtSigningKeyProvider;
+
+    @Autowired
+    private UserAuthTokenCache userAuthTokenCache;
+
+    @Autowired
+    private LoginThrottle loginThrottle;
+
+    @Autowired
+    private SessionWriteBehind sessionWriteBehind;
+
+    @Autowired
+    private PasswordHashingExecutor passwordHashingExecutor;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * "jwt" issues signed JWT access tokens, "opaque" issues short random tokens stored as their SHA-256 digest.
+     * Access tokens of both formats are accepted whichever is issued.
+     */
+    @Value("${quora.auth.token-format:jwt}")
+    private String tokenFormat;
+
     /**
      * Method to authenticate user credentials.
+     * The password is hashed on the PasswordHashingExecutor, so the calling request thread is not held while hashing, and the
+     * session is written on its persistence pool. A stored hash that was produced with other than the configured algorithm or cost is replaced after a successful login.
+     * Attempts beyond the LoginThrottle limits are rejected before the user is looked up; every attempt is charged to the
+     * username up front, and given back when the password matches or could not be checked.
      *
      * @param userName username to be used in authentication
      * @param password password to be used in authentication
-     * @return userAuthTokenEntity with the created auth token assigned to the user
-     * @throws AuthenticationFailedException in cases where the username doesn't exist, or the password is incorrect
+     * @param clientAddress address of the client the attempt comes from, or null if unknown
+     * @return future of the userAuthTokenEntity with the created auth token assigned to the user, completed exceptionally with
+     * AuthenticationFailedException in cases where the username doesn't exist, or the password is incorrect, with
+     * TooManyRequestsException in cases where the client or the username ran out of signin attempts, and with
+     * ServiceUnavailableException in cases where the hashing pool is saturated
      */
 
-    @Transactional(propagation = Propagation.REQUIRED)
-    public UserAuthTokenEntity authenticate(final String userName, final String password) throws AuthenticationFailedException {
+    public CompletableFuture<UserAuthTokenEntity> authenticate(final String userName, final String password,
+                                                               final String clientAddress) {
+
+        try {
+            loginThrottle.acquire(userName, clientAddress);
+        } catch (TooManyRequestsException e) {
+            CompletableFuture<UserAuthTokenEntity> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
 
-        UserEntity userEntity = userDao.findUserByUserName(userName);
+        final UserEntity userEntity = userDao.findUserByUserName(userName);
 
         if (userEntity == null) {
-            throw new AuthenticationFailedException("ATH-001", "This username does not exist");
+            CompletableFuture<UserAuthTokenEntity> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new AuthenticationFailedException("ATH-001", "This username does not exist"));
+            return failed;
         }
 
-        final String encryptedPassword = PasswordCryptographyProvider
-                .encrypt(password, userEntity.getSalt());
+        return passwordHashingExecutor.submit(() -> verifyPassword(password, userEntity))
+                .whenComplete((verification, error) -> {
+                    // The password was not checked, typically as the hashing pool was saturated: no failed attempt
+                    if (error != null) {
+                        loginThrottle.release(userName, clientAddress);
+                    }
+                })
+                .thenApplyAsync(verification -> {
+                    if (!verification.matched) {
+                        throw new CompletionException(new AuthenticationFailedException("ATH-002", "Password failed"));
+                    }
+                    loginThrottle.release(userName, clientAddress);
+                    UserAuthTokenEntity userAuthTokenEntity = transactionTemplate.execute(status -> {
+                        if (verification.rehashedPassword != null) {
+                            userCredentialDao.updateCredentials(userEntity.getUuid(), verification.rehashedPassword[1],
+                                    verification.rehashedPassword[0]);
+                            userEntity.setSalt(verification.rehashedPassword[0]);
+                            userEntity.setPassword(verification.rehashedPassword[1]);
+                        }
+                        return createAuthToken(userEntity);
+                    });
+                    userAuthTokenCache.put(userAuthTokenEntity);
+                    // Queued only once the transaction is over, so a batch written on this thread does not join it
+                    if (sessionWriteBehind.isEnabled()) {
+                        sessionWriteBehind.enqueue(userAuthTokenEntity);
+                    }
+                    return userAuthTokenEntity;
+                }, passwordHashingExecutor.getPersistenceExecutor());
+    }
 
-        if (encryptedPassword.equals(userEntity.getPassword())) {
+    private PasswordVerification verifyPassword(final String password, final UserEntity userEntity) {
+        if (!passwordCryptographyProvider.matches(password, userEntity.getSalt(), userEntity.getPassword())) {
+            return new PasswordVerification(false, null);
+        }
+        // Hashing again while the raw password is at hand is the only chance to upgrade an outdated hash
+        return new PasswordVerification(true, passwordCryptographyProvider.needsRehash(userEntity.getPassword())
+                ? passwordCryptographyProvider.encrypt(password) : null);
+    }
 
-            JwtTokenProvider tokenProvider = new JwtTokenProvider(encryptedPassword);
+    private UserAuthTokenEntity createAuthToken(final UserEntity userEntity) {
 
-            UserAuthTokenEntity userAuthTokenEntity = new UserAuthTokenEntity();
-            userAuthTokenEntity.setUser(userEntity);
-            userAuthTokenEntity.setUuid(userEntity.getUuid());
+        UserAuthTokenEntity userAuthTokenEntity = new UserAuthTokenEntity();
+        userAuthTokenEntity.setUser(userEntity);
+        userAuthTokenEntity.setUuid(userEntity.getUuid());
 
-            final ZonedDateTime currentTime = ZonedDateTime.now();
-            final ZonedDateTime expiryTime = currentTime.plusHours(8);
+        final ZonedDateTime currentTime = ZonedDateTime.now();
+        final ZonedDateTime expiryTime = currentTime.plusHours(8);
 
+        if ("opaque".equals(tokenFormat)) {
+            userAuthTokenEntity.setAccessToken(OpaqueAccessToken.generate());
+        } else {
+            JwtTokenProvider tokenProvider = new JwtTokenProvider(jwtSigningKeyProvider.getActiveKeyId(),
+                    jwtSigningKeyProvider.getActiveSecret());
             userAuthTokenEntity.setAccessToken(tokenProvider.generateToken(userEntity.getUuid(), currentTime, expiryTime));
-            userAuthTokenEntity.setLoginAt(currentTime);
-            userAuthTokenEntity.setExpiresAt(expiryTime);
+        }
+        userAuthTokenEntity.setLoginAt(currentTime);
+        userAuthTokenEntity.setExpiresAt(expiryTime);
 
-            userDao.createAuthToken(userAuthTokenEntity);
-            return userAuthTokenEntity;
-        } else {
+        // Written through JDBC, so the entity keeps the issued access token while user_auth gets its lookup key
+        if (!sessionWriteBehind.isEnabled()) {
+            userAuthDao.insertAll(Collections.singletonList(userAuthTokenEntity));
+        }
+        return userAuthTokenEntity;
+    }
+
+    private static final class PasswordVerification {
+        private final boolean matched;
+        // [0] encoded salt [1] hashed password, when the stored hash has to be replaced
+        private final String[] rehashedPassword;
 
-            throw new AuthenticationFailedException("ATH-002", "Password failed");
+        private PasswordVerification(boolean matched, String[] rehashedPassword) {
+            this.matched = matched;
+            this.rehashedPassword = rehashedPassword;
         }
     }
 }
@@ -1,10 +1,13 @@
 package com.upgrad.quora.service.business;
 
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
 import com.upgrad.quora.service.common.EndPointIdentifier;
-import com.upgrad.quora.service.dao.UserDao;
+import com.upgrad.quora.service.common.OpaqueAccessToken;
 import com.upgrad.quora.service.entity.UserAuthTokenEntity;
 import com.upgrad.quora.service.exception.AuthorizationFailedException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 
@@ -12,42 +15,70 @@ import org.springframework.stereotype.Service;
 public class AuthorizationService implements EndPointIdentifier {
 
     @Autowired
-    private UserDao userDao;
+    private UserAuthTokenCache userAuthTokenCache;
 
     @Autowired
     UserService userService;
 
+    @Autowired
+    private JwtTokenVerifier jwtTokenVerifier;
+
+    @Autowired
+    private SignedOutTokenIndex signedOutTokenIndex;
+
+    /**
+     * "database" looks every access token up in user_auth, "jwt" verifies JWT access tokens in-process first so that forged,
+     * tampered or expired tokens are rejected without a lookup.
+     */
+    @Value("${quora.auth.token-verification:database}")
+    private String tokenVerification;
+
     /**
      * Method to authorize a user based on the given access token
      *
-     * @param accessToken assigned to the User
+     * @param accessToken        assigned to the User
+     * @param endpointIdentifier EndPointIdentifier constant of the endpoint being accessed
      * @return UserAuthTokenEntity which has the authorisation details of the user
      * @throws AuthorizationFailedException
      */
     public UserAuthTokenEntity getUserAuthTokenEntity(String accessToken, String endpointIdentifier) throws AuthorizationFailedException {
 
-        if (userDao.findUserAuthTokenEntityByAccessToken(accessToken) == null) {
+        // A stored digest is never an access token, whoever managed to read it
+        if (OpaqueAccessToken.isStoredDigest(accessToken)) {
+            throw new AuthorizationFailedException("ATHR-001", "User has not signed in");
+        }
+
+        DecodedJWT decodedJWT = null;
+        if ("jwt".equals(tokenVerification) && JwtTokenVerifier.isJwt(accessToken)) {
+            try {
+                decodedJWT = jwtTokenVerifier.verify(accessToken);
+            } catch (JWTVerificationException e) {
+                throw new AuthorizationFailedException("ATHR-001", "User has not signed in");
+            }
+        }
+
+        if (signedOutTokenIndex.isRevoked(OpaqueAccessToken.toLookupKey(accessToken))) {
+            throw new AuthorizationFailedException("ATHR-002", endpointIdentifier);
+        }
+
+        // With a verified token the session is only needed for the logout state and the user, which the cache serves
+        UserAuthTokenEntity userAuthTokenEntity = userAuthTokenCache.getUserAuthTokenEntity(accessToken);
+
+        if (userAuthTokenEntity == null
+                || (decodedJWT != null && !decodedJWT.getAudience().contains(userAuthTokenEntity.getUser().getUuid()))) {
 
             throw new AuthorizationFailedException("ATHR-001", "User has not signed in");
         } else {
 
-            String logoutAt = String.valueOf(userDao.findUserAuthTokenEntityByAccessToken(accessToken)
-                    .getLogoutAt());
+            String logoutAt = String.valueOf(userAuthTokenEntity.getLogoutAt());
 
             if (!logoutAt.equals("null")) {
-                String error = null;
-
-                if (endpointIdentifier.equals(QUESTION_ENDPOINT)) {
-                    error = QUESTION_ENDPOINT;
-                } else if (endpointIdentifier.equals(ANSWER_ENDPOINT)) {
-                    error = ANSWER_ENDPOINT;
-                } else if (endpointIdentifier.equals(USER_ENDPOINT)) {
-                    error = USER_ENDPOINT;
-                }
-                throw new AuthorizationFailedException("ATHR-002", error);
+
+                // Every endpoint identifier carries the signed out message of its endpoint
+                throw new AuthorizationFailedException("ATHR-002", endpointIdentifier);
             } else {
 
-                return userDao.findUserAuthTokenEntityByAccessToken(accessToken);
+                return userAuthTokenEntity;
             }
 
         }
@@ -0,0 +1,62 @@
+package com.upgrad.quora.service.business;
+
+import org.hibernate.SessionFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+
+/**
+ * Evicts second-level cache regions of entities whose rows the DB deletes by itself through ON DELETE CASCADE, and entries
+ * of rows changed by native statements, which Hibernate cannot see. Eviction happens after the commit, so that a
+ * concurrent read cannot cache the rows again before they are gone. Cached query results are dropped along with regions,
+ * as they may list ids of deleted rows.
+ */
+@Component
+public class EntityCacheEviction {
+
+    @PersistenceUnit
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * @param entityClasses entities whose cached rows may have been deleted by the current transaction
+     */
+    public void evictAfterCommit(final Class<?>... entityClasses) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    evict(entityClasses);
+                }
+            });
+        } else {
+            evict(entityClasses);
+        }
+    }
+
+    /**
+     * @param entityClass entity of the row changed by the current transaction
+     * @param id          id of the row
+     */
+    public void evictAfterCommit(final Class<?> entityClass, final Object id) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    entityManagerFactory.getCache().evict(entityClass, id);
+                }
+            });
+        } else {
+            entityManagerFactory.getCache().evict(entityClass, id);
+        }
+    }
+
+    private void evict(final Class<?>... entityClasses) {
+        for (Class<?> entityClass : entityClasses) {
+            entityManagerFactory.getCache().evict(entityClass);
+        }
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+    }
+}
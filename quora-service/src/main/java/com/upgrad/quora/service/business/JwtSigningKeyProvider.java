@@ -0,0 +1,82 @@
+package com.upgrad.quora.service.business;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Provides the server side keys used to sign and verify access tokens.
+ * Keys are configured as a comma separated list of "keyId:secret" pairs; tokens are signed with the active key while every
+ * configured key is still accepted for verification, so a key can be rotated without signing every user out.
+ * Keys must be configured whenever JWT access tokens are issued or verified, as every instance has to sign and verify with
+ * the same keys; only when neither is the case is an ephemeral key generated.
+ */
+@Component
+public class JwtSigningKeyProvider {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JwtSigningKeyProvider.class);
+
+    @Value("${quora.auth.jwt.keys:}")
+    private String keys;
+
+    @Value("${quora.auth.jwt.active-key-id:}")
+    private String activeKeyId;
+
+    @Value("${quora.auth.token-format:jwt}")
+    private String tokenFormat;
+
+    @Value("${quora.auth.token-verification:database}")
+    private String tokenVerification;
+
+    private final Map<String, String> secretsByKeyId = new HashMap<>();
+
+    @PostConstruct
+    void init() {
+        for (String key : keys.split(",")) {
+            int separator = key.indexOf(':');
+            if (separator > 0) {
+                secretsByKeyId.put(key.substring(0, separator).trim(), key.substring(separator + 1).trim());
+            }
+        }
+
+        if (secretsByKeyId.isEmpty()) {
+            if ("jwt".equals(tokenFormat) || "jwt".equals(tokenVerification)) {
+                // An instance generating its own key would reject the tokens of every other instance, and its own after a restart
+                throw new IllegalStateException("quora.auth.jwt.keys must be configured when JWT access tokens are issued "
+                        + "(quora.auth.token-format) or verified (quora.auth.token-verification)");
+            }
+            // No JWT is signed nor verified, the key is only there for tokens received in the JWT format
+            LOGGER.warn("No JWT signing keys configured, generating an ephemeral key");
+            byte[] secret = new byte[64];
+            new SecureRandom().nextBytes(secret);
+            activeKeyId = UUID.randomUUID().toString();
+            secretsByKeyId.put(activeKeyId, Base64.getEncoder().encodeToString(secret));
+        } else if (!secretsByKeyId.containsKey(activeKeyId)) {
+            throw new IllegalStateException("Active JWT key id '" + activeKeyId + "' is not one of the configured keys");
+        }
+    }
+
+    public String getActiveKeyId() {
+        return activeKeyId;
+    }
+
+    public String getActiveSecret() {
+        return secretsByKeyId.get(activeKeyId);
+    }
+
+    /**
+     * @param keyId id of the key, as found in the "kid" header of the token
+     * @return secret of the key, or null if the key is unknown or has been retired
+     */
+    public String getSecret(final String keyId) {
+        return keyId == null ? null : secretsByKeyId.get(keyId);
+    }
+}
@@ -6,7 +6,6 @@ import com.upgrad.quora.service.common.GenericErrorCode;
 import com.upgrad.quora.service.common.UnexpectedException;
 
 import java.time.ZonedDateTime;
-import java.time.temporal.ChronoField;
 import java.util.Date;
 import java.util.UUID;
 
@@ -14,14 +13,25 @@ import java.util.UUID;
  * This class is used in the project to provide JWT token after successful authentication
  */
 public class JwtTokenProvider {
-    private static final String TOKEN_ISSUER = "https://quora.io";
+    static final String TOKEN_ISSUER = "https://quora.io";
 
     private final Algorithm algorithm;
 
+    private final String keyId;
+
     /**
      * A constructor for JwtTokenProvider class which receives user password as an argument to be used in the signature part of JWT access token.
      */
     public JwtTokenProvider(final String secret) {
+        this(null, secret);
+    }
+
+    /**
+     * A constructor for JwtTokenProvider class which receives a server side signing key and its id.
+     * The key id is written to the "kid" header so that JwtTokenVerifier can pick the matching key.
+     */
+    public JwtTokenProvider(final String keyId, final String secret) {
+        this.keyId = keyId;
         try {
             algorithm = Algorithm.HMAC512(secret);
         } catch (IllegalArgumentException e) {
@@ -42,11 +52,12 @@ public class JwtTokenProvider {
      */
     public String generateToken(final String userUuid, final ZonedDateTime issuedDateTime, final ZonedDateTime expiresDateTime) {
 
-        final Date issuedAt = new Date(issuedDateTime.getLong(ChronoField.INSTANT_SECONDS));
-        final Date expiresAt = new Date(expiresDateTime.getLong(ChronoField.INSTANT_SECONDS));
+        final Date issuedAt = Date.from(issuedDateTime.toInstant());
+        final Date expiresAt = Date.from(expiresDateTime.toInstant());
 
         return JWT.create().withIssuer(TOKEN_ISSUER) //
-                .withKeyId(UUID.randomUUID().toString())
+                .withKeyId(keyId != null ? keyId : UUID.randomUUID().toString())
+                .withJWTId(UUID.randomUUID().toString())
                 .withAudience(userUuid) //
                 .withIssuedAt(issuedAt).withExpiresAt(expiresAt).sign(algorithm);
     }
@@ -0,0 +1,55 @@
+package com.upgrad.quora.service.business;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Verifies the signature, issuer, audience and expiry of the access tokens issued by JwtTokenProvider without touching the DB.
+ * One verifier is built per signing key id and reused for every token signed with that key.
+ */
+@Component
+public class JwtTokenVerifier {
+
+    @Autowired
+    private JwtSigningKeyProvider jwtSigningKeyProvider;
+
+    private final Map<String, JWTVerifier> verifiersByKeyId = new ConcurrentHashMap<>();
+
+    /**
+     * @param accessToken access token assigned to the user
+     * @return the decoded token
+     * @throws JWTVerificationException if the token is malformed, signed with an unknown key, tampered with or expired
+     */
+    public DecodedJWT verify(final String accessToken) throws JWTVerificationException {
+
+        final String keyId = JWT.decode(accessToken).getKeyId();
+        final String secret = jwtSigningKeyProvider.getSecret(keyId);
+        if (secret == null) {
+            throw new JWTVerificationException("Access token is signed with an unknown key");
+        }
+
+        DecodedJWT decodedJWT = verifiersByKeyId.computeIfAbsent(keyId, id -> JWT.require(Algorithm.HMAC512(secret))
+                .withIssuer(JwtTokenProvider.TOKEN_ISSUER).build()).verify(accessToken);
+
+        if (decodedJWT.getAudience() == null || decodedJWT.getAudience().isEmpty()) {
+            throw new JWTVerificationException("Access token has no audience");
+        }
+        return decodedJWT;
+    }
+
+    /**
+     * @param accessToken access token assigned to the user
+     * @return true if the access token has the three part structure of a JWT
+     */
+    public static boolean isJwt(final String accessToken) {
+        return accessToken != null && accessToken.indexOf('.') > 0 && accessToken.indexOf('.') != accessToken.lastIndexOf('.');
+    }
+}
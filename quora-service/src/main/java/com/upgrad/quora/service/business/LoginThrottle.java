@@ -0,0 +1,161 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.common.TokenBucketLimiter;
+import com.upgrad.quora.service.exception.TooManyRequestsException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits signin attempts per client address, and failed signin attempts per username at a client address and per username,
+ * so that credential stuffing and password guessing are turned away before they cost a user lookup or a password hash.
+ * Every attempt takes a token from the bucket of the client, of the username at the client and of the username, all up front
+ * so that concurrent attempts cannot all pass; a successful signin gives the username tokens back, so only failed attempts
+ * count against a username. The bucket of the username at the client is tight, while the bucket of the username, shared by
+ * every client, only bounds guessing spread over many addresses and is large enough that failing to sign in as somebody
+ * from elsewhere rarely locks them out. Buckets refill continuously over time.
+ */
+@Component
+public class LoginThrottle {
+
+    @Value("${quora.auth.login-throttle.enabled:true}")
+    private boolean enabled;
+
+    @Value("${quora.auth.login-throttle.slots:65536}")
+    private int slots;
+
+    @Value("${quora.auth.login-throttle.username-at-client.capacity:10}")
+    private int userNameAtClientCapacity;
+
+    @Value("${quora.auth.login-throttle.username-at-client.refill-per-minute:5}")
+    private double userNameAtClientRefillPerMinute;
+
+    @Value("${quora.auth.login-throttle.username.capacity:100}")
+    private int userNameCapacity;
+
+    @Value("${quora.auth.login-throttle.username.refill-per-minute:20}")
+    private double userNameRefillPerMinute;
+
+    @Value("${quora.auth.login-throttle.client.capacity:50}")
+    private int clientCapacity;
+
+    @Value("${quora.auth.login-throttle.client.refill-per-minute:30}")
+    private double clientRefillPerMinute;
+
+    private TokenBucketLimiter userNameAtClientLimiter;
+
+    private TokenBucketLimiter userNameLimiter;
+
+    private TokenBucketLimiter clientLimiter;
+
+    private final LongAdder allowedCount = new LongAdder();
+
+    private final LongAdder userNameRejectedCount = new LongAdder();
+
+    private final LongAdder clientRejectedCount = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        userNameAtClientLimiter = new TokenBucketLimiter(slots, userNameAtClientCapacity, userNameAtClientRefillPerMinute);
+        userNameLimiter = new TokenBucketLimiter(slots, userNameCapacity, userNameRefillPerMinute);
+        clientLimiter = new TokenBucketLimiter(slots, clientCapacity, clientRefillPerMinute);
+    }
+
+    /**
+     * Method to take a signin attempt from the budgets of the username at the client, of the username and of the client.
+     * The attempt counts as failed until release gives the username tokens back.
+     *
+     * @param userName username the client tries to sign in with
+     * @param clientAddress address of the client, or null if unknown
+     * @throws TooManyRequestsException in cases where the client ran out of attempts, or the username of failed attempts
+     */
+    public void acquire(final String userName, final String clientAddress) throws TooManyRequestsException {
+        if (!enabled) {
+            return;
+        }
+        final String userNameAtClient = userNameAtClientKey(userName, clientAddress);
+        long waitMillis = userNameAtClientLimiter.tryAcquire(userNameAtClient);
+        if (waitMillis > 0) {
+            userNameRejectedCount.increment();
+            throw reject(waitMillis);
+        }
+        waitMillis = userNameLimiter.tryAcquire(userName);
+        if (waitMillis > 0) {
+            userNameAtClientLimiter.release(userNameAtClient);
+            userNameRejectedCount.increment();
+            throw reject(waitMillis);
+        }
+        if (clientAddress != null) {
+            waitMillis = clientLimiter.tryAcquire(clientAddress);
+            if (waitMillis > 0) {
+                release(userName, clientAddress);
+                clientRejectedCount.increment();
+                throw reject(waitMillis);
+            }
+        }
+        allowedCount.increment();
+    }
+
+    /**
+     * Method to give the username tokens of an attempt back, once it turned out not to be a failed signin: the password
+     * matched, or the attempt could not be made.
+     *
+     * @param userName username the client tried to sign in with
+     * @param clientAddress address of the client, or null if unknown
+     */
+    public void release(final String userName, final String clientAddress) {
+        if (enabled) {
+            userNameAtClientLimiter.release(userNameAtClientKey(userName, clientAddress));
+            userNameLimiter.release(userName);
+        }
+    }
+
+    private static String userNameAtClientKey(final String userName, final String clientAddress) {
+        return userName + '\u0000' + (clientAddress == null ? "" : clientAddress);
+    }
+
+    private TooManyRequestsException reject(final long waitMillis) {
+        final long retryAfterSeconds = Math.max(1, TimeUnit.MILLISECONDS.toSeconds(waitMillis + 999));
+        return new TooManyRequestsException("ATH-003", "Too many signin attempts, please retry after " + retryAfterSeconds
+                + " second(s)", retryAfterSeconds);
+    }
+
+    public long getAllowedCount() {
+        return allowedCount.sum();
+    }
+
+    public long getUserNameRejectedCount() {
+        return userNameRejectedCount.sum();
+    }
+
+    public long getClientRejectedCount() {
+        return clientRejectedCount.sum();
+    }
+
+    public int getUserNameAtClientCapacity() {
+        return userNameAtClientCapacity;
+    }
+
+    public double getUserNameAtClientRefillPerMinute() {
+        return userNameAtClientRefillPerMinute;
+    }
+
+    public int getUserNameCapacity() {
+        return userNameCapacity;
+    }
+
+    public double getUserNameRefillPerMinute() {
+        return userNameRefillPerMinute;
+    }
+
+    public int getClientCapacity() {
+        return clientCapacity;
+    }
+
+    public double getClientRefillPerMinute() {
+        return clientRefillPerMinute;
+    }
+}
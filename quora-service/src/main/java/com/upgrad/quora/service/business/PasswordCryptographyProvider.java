@@ -1,48 +1,101 @@
 package com.upgrad.quora.service.business;
 
 
-import java.security.NoSuchAlgorithmException;
+import java.security.MessageDigest;
 import java.security.SecureRandom;
-import java.security.spec.InvalidKeySpecException;
 import java.util.Base64;
-import java.util.Random;
-import javax.crypto.SecretKey;
-import javax.crypto.SecretKeyFactory;
-import javax.crypto.spec.PBEKeySpec;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 
+/**
+ * Hashes and verifies passwords through the configured PasswordHasher.
+ * Hashes are stored as "$algorithm$iterations$keyLength$HEX" so that every hash records how it was produced and the cost can
+ * be raised later; hashes stored before this format (plain HEX) are PBKDF2WithHmacSHA512 with 1000 iterations and 64 bits.
+ */
 @Component
 public class PasswordCryptographyProvider {
 
-    private static String SECRET_KEY_ALGORITHM = "PBKDF2WithHmacSHA512";
-    private static int HASHING_ITERATIONS = 1000;
-    private static int HASHING_KEY_LENGTH = 64;
+    private static final String LEGACY_ALGORITHM = "pbkdf2-sha512";
+    private static final int LEGACY_ITERATIONS = 1000;
+    private static final int LEGACY_KEY_LENGTH = 64;
     private final static char[] hexArray = "0123456789ABCDEF".toCharArray();
 
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
+    @Autowired
+    private List<PasswordHasher> passwordHashers;
+
+    @Value("${quora.hashing.algorithm:" + LEGACY_ALGORITHM + "}")
+    private String algorithm;
+
+    @Value("${quora.hashing.iterations:" + LEGACY_ITERATIONS + "}")
+    private int iterations;
+
+    @Value("${quora.hashing.key-length:" + LEGACY_KEY_LENGTH + "}")
+    private int keyLength;
+
+    private final Map<String, PasswordHasher> hashersByAlgorithm = new HashMap<>();
+
+    @PostConstruct
+    void init() {
+        for (PasswordHasher passwordHasher : passwordHashers) {
+            hashersByAlgorithm.put(passwordHasher.getAlgorithm(), passwordHasher);
+        }
+        if (!hashersByAlgorithm.containsKey(algorithm)) {
+            throw new IllegalStateException("No password hasher for configured algorithm '" + algorithm + "'");
+        }
+    }
+
     /**
-     * This method generates Salt and hashed Password
+     * This method generates Salt and hashed Password with the configured algorithm and cost.
      *
      * @param password char array.
      * @return String array with [0] encoded salt [1] hashed password.
      */
     public String[] encrypt(final String password) {
         byte[] salt = generateSaltBytes();
-        byte[] hashedPassword = hashPassword(password.toCharArray(), salt);
-        return new String[]{getBase64EncodedBytesAsString(salt), bytesToHex(hashedPassword)};
+        byte[] hashedPassword = hashersByAlgorithm.get(algorithm).hash(password.toCharArray(), salt, iterations, keyLength);
+        return new String[]{getBase64EncodedBytesAsString(salt),
+                "$" + algorithm + "$" + iterations + "$" + keyLength + "$" + bytesToHex(hashedPassword)};
     }
 
     /**
-     * This method re-generates hashed Password from raw-password and salt.
+     * This method re-generates the hashed Password from raw-password and salt with the parameters recorded in the stored hash,
+     * and compares it with the stored hash.
      * This will be used during authentication.
      *
-     * @param password char array.
-     * @param salt     byte array.
-     * @return byte array of hashed password.
+     * @param password   raw password.
+     * @param salt       encoded salt of the user.
+     * @param storedHash hashed password of the user.
+     * @return true if the password matches.
+     */
+    public boolean matches(final String password, final String salt, final String storedHash) {
+        final HashParameters parameters = HashParameters.parse(storedHash);
+        final PasswordHasher passwordHasher = hashersByAlgorithm.get(parameters.algorithm);
+        if (passwordHasher == null) {
+            return false;
+        }
+        final String hashedPassword = bytesToHex(passwordHasher.hash(password.toCharArray(), getBase64DecodedStringAsBytes(salt),
+                parameters.iterations, parameters.keyLength));
+        return MessageDigest.isEqual(hashedPassword.getBytes(), parameters.hash.getBytes());
+    }
+
+    /**
+     * @param storedHash hashed password of the user.
+     * @return true if the stored hash was not produced with the configured algorithm and cost and should be upgraded.
      */
-    public static String encrypt(final String password, String salt) {
-        return bytesToHex(hashPassword(password.toCharArray(), getBase64DecodedStringAsBytes(salt)));
+    public boolean needsRehash(final String storedHash) {
+        final HashParameters parameters = HashParameters.parse(storedHash);
+        return !parameters.current || !algorithm.equals(parameters.algorithm)
+                || iterations != parameters.iterations || keyLength != parameters.keyLength;
     }
 
     /**
@@ -51,31 +104,11 @@ public class PasswordCryptographyProvider {
      * @return 32 bytes long array
      */
     private static byte[] generateSaltBytes() {
-        final Random random = new SecureRandom();
         byte[] saltBytes = new byte[32];
-        random.nextBytes(saltBytes);
+        SECURE_RANDOM.nextBytes(saltBytes);
         return saltBytes;
     }
 
-    /**
-     * This method generates hashed Password
-     *
-     * @param password char array.
-     * @param salt     byte array.
-     * @return byte array of hashed password.
-     */
-    private static byte[] hashPassword(final char[] password, final byte[] salt) {
-        try {
-            SecretKeyFactory skf = SecretKeyFactory.getInstance(SECRET_KEY_ALGORITHM);
-            PBEKeySpec spec = new PBEKeySpec(password, salt, HASHING_ITERATIONS, HASHING_KEY_LENGTH);
-            SecretKey key = skf.generateSecret(spec);
-            byte[] res = key.getEncoded();
-            return res;
-        } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
-            throw new RuntimeException(e);
-        }
-    }
-
     private static String bytesToHex(byte[] bytes) {
         char[] hexChars = new char[bytes.length * 2];
         for (int j = 0; j < bytes.length; j++) {
@@ -93,6 +126,30 @@ public class PasswordCryptographyProvider {
     private static byte[] getBase64DecodedStringAsBytes(String decode) {
         return Base64.getDecoder().decode(decode);
     }
-}
 
+    private static final class HashParameters {
+        private final boolean current;
+        private final String algorithm;
+        private final int iterations;
+        private final int keyLength;
+        private final String hash;
+
+        private HashParameters(boolean current, String algorithm, int iterations, int keyLength, String hash) {
+            this.current = current;
+            this.algorithm = algorithm;
+            this.iterations = iterations;
+            this.keyLength = keyLength;
+            this.hash = hash;
+        }
 
+        private static HashParameters parse(final String storedHash) {
+            if (storedHash.startsWith("$")) {
+                String[] parts = storedHash.substring(1).split("\\$");
+                if (parts.length == 4) {
+                    return new HashParameters(true, parts[0], Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), parts[3]);
+                }
+            }
+            return new HashParameters(false, LEGACY_ALGORITHM, LEGACY_ITERATIONS, LEGACY_KEY_LENGTH, storedHash);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.upgrad.quora.service.business;
+
+/**
+ * SPI of a password hashing algorithm used by PasswordCryptographyProvider.
+ * Implementations are Spring components and are picked by the algorithm name recorded in every stored hash.
+ */
+public interface PasswordHasher {
+
+    /**
+     * @return name of the algorithm as recorded in the stored hash, e.g. "pbkdf2-sha512"
+     */
+    String getAlgorithm();
+
+    /**
+     * @param password      raw password
+     * @param salt          salt of the user
+     * @param iterations    cost parameter of the algorithm
+     * @param keyLengthBits length of the derived hash in bits
+     * @return the derived hash
+     */
+    byte[] hash(char[] password, byte[] salt, int iterations, int keyLengthBits);
+}
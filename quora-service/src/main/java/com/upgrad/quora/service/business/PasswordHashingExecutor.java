@@ -0,0 +1,159 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.exception.ServiceUnavailableException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Dedicated, size limited pool on which password hashing runs, so that a burst of signins or signups cannot occupy every
+ * request thread. Work that cannot be queued, or that waited in the queue longer than allowed, fails fast with a
+ * ServiceUnavailableException carrying a retry hint instead of piling up.
+ * The DB work following a hash runs on a separate pool, so that hashing threads never wait for a JDBC connection.
+ */
+@Component
+public class PasswordHashingExecutor {
+
+    @Value("${quora.hashing.pool-size:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}")
+    private int poolSize;
+
+    @Value("${quora.hashing.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${quora.hashing.max-wait-ms:2000}")
+    private long maxWaitMillis;
+
+    @Value("${quora.hashing.retry-after-seconds:1}")
+    private long retryAfterSeconds;
+
+    @Value("${quora.hashing.persistence-pool-size:10}")
+    private int persistencePoolSize;
+
+    private ThreadPoolExecutor executor;
+
+    private ThreadPoolExecutor persistenceExecutor;
+
+    private final LongAdder hashCount = new LongAdder();
+
+    private final LongAdder hashNanos = new LongAdder();
+
+    private final LongAccumulator maxHashNanos = new LongAccumulator(Long::max, 0);
+
+    private final LongAdder rejectedCount = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        final AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+        // Unbounded, as at most the hashing pool and its queue can hand work over to it
+        final AtomicInteger persistenceThreadNumber = new AtomicInteger();
+        persistenceExecutor = new ThreadPoolExecutor(persistencePoolSize, persistencePoolSize, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "password-persistence-" + persistenceThreadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+        persistenceExecutor.shutdown();
+    }
+
+    /**
+     * @return executor for the DB work that follows a hash, to be passed to the async stages of the future of submit
+     */
+    public Executor getPersistenceExecutor() {
+        return persistenceExecutor;
+    }
+
+    /**
+     * Method to run a hashing task on the hashing pool.
+     *
+     * @param task the hashing work
+     * @return future completed with the result of the task, or exceptionally with a ServiceUnavailableException when saturated
+     */
+    public <T> CompletableFuture<T> submit(final Supplier<T> task) {
+        final long enqueuedAt = System.nanoTime();
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                final long startedAt = System.nanoTime();
+                if (TimeUnit.NANOSECONDS.toMillis(startedAt - enqueuedAt) > maxWaitMillis) {
+                    future.completeExceptionally(reject());
+                    return;
+                }
+                try {
+                    future.complete(task.get());
+                } catch (CompletionException e) {
+                    future.completeExceptionally(e.getCause() != null ? e.getCause() : e);
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    final long elapsed = System.nanoTime() - startedAt;
+                    hashCount.increment();
+                    hashNanos.add(elapsed);
+                    maxHashNanos.accumulate(elapsed);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(reject());
+        }
+        return future;
+    }
+
+    private ServiceUnavailableException reject() {
+        rejectedCount.increment();
+        return new ServiceUnavailableException("SRV-001", "Server is busy, please retry after " + retryAfterSeconds + " second(s)",
+                retryAfterSeconds);
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public int getPersistenceQueueDepth() {
+        return persistenceExecutor.getQueue().size();
+    }
+
+    public long getHashCount() {
+        return hashCount.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    public double getAverageHashLatencyMillis() {
+        long count = hashCount.sum();
+        return count == 0 ? 0.0 : hashNanos.sum() / 1_000_000.0 / count;
+    }
+
+    public double getMaxHashLatencyMillis() {
+        return maxHashNanos.get() / 1_000_000.0;
+    }
+}
@@ -0,0 +1,84 @@
+package com.upgrad.quora.service.business;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+
+/**
+ * PBKDF2 (RFC 8018) over an HMAC, producing the same output as the "PBKDF2WithHmac*" SecretKeyFactory of the JDK.
+ * The Mac instance is kept per thread and only re-keyed per password, instead of creating a SecretKeyFactory on every call.
+ */
+public abstract class Pbkdf2PasswordHasher implements PasswordHasher {
+
+    private final String algorithm;
+
+    private final String macAlgorithm;
+
+    private final ThreadLocal<Mac> macs;
+
+    protected Pbkdf2PasswordHasher(final String algorithm, final String macAlgorithm) {
+        this.algorithm = algorithm;
+        this.macAlgorithm = macAlgorithm;
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                return Mac.getInstance(macAlgorithm);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    @Override
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    @Override
+    public byte[] hash(final char[] password, final byte[] salt, final int iterations, final int keyLengthBits) {
+        final Mac mac = macs.get();
+        final ByteBuffer encodedPassword = StandardCharsets.UTF_8.encode(CharBuffer.wrap(password));
+        final byte[] passwordBytes = Arrays.copyOf(encodedPassword.array(), encodedPassword.limit());
+        try {
+            // An empty HMAC key is not accepted by SecretKeySpec, a single zero byte is equivalent under HMAC key padding
+            mac.init(new SecretKeySpec(passwordBytes.length == 0 ? new byte[1] : passwordBytes, macAlgorithm));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            Arrays.fill(passwordBytes, (byte) 0);
+        }
+
+        final int keyLength = (keyLengthBits + 7) / 8;
+        final int blockLength = mac.getMacLength();
+        final byte[] derivedKey = new byte[keyLength];
+        final byte[] block = new byte[blockLength];
+        final byte[] u = new byte[blockLength];
+
+        for (int blockIndex = 1, offset = 0; offset < keyLength; blockIndex++, offset += blockLength) {
+            mac.update(salt);
+            mac.update(new byte[]{(byte) (blockIndex >>> 24), (byte) (blockIndex >>> 16), (byte) (blockIndex >>> 8), (byte) blockIndex});
+            doFinal(mac, u);
+            System.arraycopy(u, 0, block, 0, blockLength);
+            for (int iteration = 1; iteration < iterations; iteration++) {
+                mac.update(u);
+                doFinal(mac, u);
+                for (int i = 0; i < blockLength; i++) {
+                    block[i] ^= u[i];
+                }
+            }
+            System.arraycopy(block, 0, derivedKey, offset, Math.min(blockLength, keyLength - offset));
+        }
+        return derivedKey;
+    }
+
+    private static void doFinal(final Mac mac, final byte[] output) {
+        try {
+            mac.doFinal(output, 0);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.upgrad.quora.service.business;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * PBKDF2 with HMAC-SHA256.
+ */
+@Component
+public class Pbkdf2Sha256PasswordHasher extends Pbkdf2PasswordHasher {
+
+    public Pbkdf2Sha256PasswordHasher() {
+        super("pbkdf2-sha256", "HmacSHA256");
+    }
+}
@@ -0,0 +1,14 @@
+package com.upgrad.quora.service.business;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * PBKDF2 with HMAC-SHA512.
+ */
+@Component
+public class Pbkdf2Sha512PasswordHasher extends Pbkdf2PasswordHasher {
+
+    public Pbkdf2Sha512PasswordHasher() {
+        super("pbkdf2-sha512", "HmacSHA512");
+    }
+}
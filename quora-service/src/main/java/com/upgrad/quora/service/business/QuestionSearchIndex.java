@@ -0,0 +1,208 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.common.InvertedIndex;
+import com.upgrad.quora.service.common.SearchHit;
+import com.upgrad.quora.service.dao.ListingStreamDao;
+import com.upgrad.quora.service.dao.QuestionListingDao;
+import com.upgrad.quora.service.dao.QuestionSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Full-text index of the content of every question, searched with BM25.
+ * At startup the index is loaded from its segment file and reconciled with QUESTION by comparing the MD5 of every content,
+ * so only questions created, edited or deleted while the application was down are read again; without a usable segment
+ * file the whole QUESTION table is streamed. Afterwards QuestionService keeps the index current on every committed
+ * change, and the segment file is rewritten in the background when the index changed.
+ */
+@Component
+public class QuestionSearchIndex {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(QuestionSearchIndex.class);
+
+    private static final int RELOAD_BATCH_SIZE = 500;
+
+    @Autowired
+    private ListingStreamDao listingStreamDao;
+
+    @Autowired
+    private QuestionListingDao questionListingDao;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${quora.search.segment-file:question-index.seg}")
+    private String segmentFile;
+
+    private InvertedIndex index;
+
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    @PostConstruct
+    void init() {
+        final long start = System.currentTimeMillis();
+        try {
+            index = InvertedIndex.load(Paths.get(segmentFile));
+        } catch (IOException e) {
+            LOGGER.warn("Question index segment {} could not be read, rebuilding it", segmentFile, e);
+        }
+        if (index == null) {
+            index = new InvertedIndex();
+            transactionTemplate.execute(status -> {
+                listingStreamDao.forEachQuestion(question -> index.put(question.getId(), question.getUuid(),
+                        question.getContent(), md5Hex(question.getContent())));
+                return null;
+            });
+            dirty.set(true);
+        } else {
+            reconcile();
+        }
+        LOGGER.info("Question index of {} questions ready in {} ms", index.getDocumentCount(),
+                System.currentTimeMillis() - start);
+        saveSegment();
+    }
+
+    private void reconcile() {
+        final Set<Integer> deletedIds = index.getIds();
+        final List<Integer> changedIds = new ArrayList<>();
+        transactionTemplate.execute(status -> {
+            listingStreamDao.forEachQuestionDigest((id, digest) -> {
+                deletedIds.remove(id);
+                if (!digest.equals(index.getDigest(id))) {
+                    changedIds.add(id);
+                }
+            });
+            return null;
+        });
+        for (Integer id : deletedIds) {
+            index.remove(id);
+        }
+        for (int from = 0; from < changedIds.size(); from += RELOAD_BATCH_SIZE) {
+            final List<Integer> batch = changedIds.subList(from, Math.min(from + RELOAD_BATCH_SIZE, changedIds.size()));
+            final List<QuestionSummary> questions = transactionTemplate.execute(status ->
+                    questionListingDao.getQuestionsById(new HashSet<>(batch)));
+            for (QuestionSummary question : questions) {
+                index.put(question.getId(), question.getUuid(), question.getContent(), md5Hex(question.getContent()));
+            }
+        }
+        if (!deletedIds.isEmpty() || !changedIds.isEmpty()) {
+            dirty.set(true);
+        }
+        LOGGER.info("Question index segment reconciled: {} questions removed, {} added or updated", deletedIds.size(),
+                changedIds.size());
+    }
+
+    /**
+     * @param query text of the query
+     * @param limit maximum number of questions
+     * @return the questions most relevant to the query, best first
+     */
+    public List<SearchHit> search(final String query, final int limit) {
+        return index.search(query, limit);
+    }
+
+    /**
+     * Method to index a created or edited question once the current transaction commits.
+     *
+     * @param id      id of the question
+     * @param uuid    uuid of the question
+     * @param content content of the question
+     */
+    public void put(final int id, final String uuid, final String content) {
+        afterCommit(() -> index.put(id, uuid, content, md5Hex(content)));
+    }
+
+    /**
+     * Method to drop a deleted question from the index once the current transaction commits.
+     *
+     * @param id id of the question
+     */
+    public void remove(final int id) {
+        afterCommit(() -> index.remove(id));
+    }
+
+    private void afterCommit(final Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                    dirty.set(true);
+                }
+            });
+        } else {
+            change.run();
+            dirty.set(true);
+        }
+    }
+
+    /**
+     * Rewrites the segment file when the index changed since it was last written.
+     */
+    @Scheduled(fixedDelayString = "${quora.search.save-interval-ms:60000}")
+    public void saveSegment() {
+        if (!dirty.getAndSet(false)) {
+            return;
+        }
+        final Path file = Paths.get(segmentFile);
+        try {
+            index.save(file);
+        } catch (IOException e) {
+            // The next run retries; until then a restart reconciles from the previous segment
+            dirty.set(true);
+            LOGGER.error("Question index segment {} could not be written", file, e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        saveSegment();
+    }
+
+    public int getDocumentCount() {
+        return index.getDocumentCount();
+    }
+
+    public int getTermCount() {
+        return index.getTermCount();
+    }
+
+    /**
+     * @param content content of a question
+     * @return the same digest as md5(content) in PostgreSQL
+     */
+    private static String md5Hex(final String content) {
+        final byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("MD5").digest(content.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        final StringBuilder hex = new StringBuilder(digest.length * 2);
+        for (byte b : digest) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -1,21 +1,33 @@
 package com.upgrad.quora.service.business;
 
 import com.upgrad.quora.service.common.EndPointIdentifier;
+import com.upgrad.quora.service.common.KeysetCursor;
+import com.upgrad.quora.service.common.KeysetPage;
+import com.upgrad.quora.service.common.SearchHit;
 import com.upgrad.quora.service.dao.QuestionDao;
+import com.upgrad.quora.service.dao.ListingStreamDao;
+import com.upgrad.quora.service.dao.QuestionListingDao;
+import com.upgrad.quora.service.dao.QuestionMutationDao;
+import com.upgrad.quora.service.dao.QuestionSummary;
 import com.upgrad.quora.service.dao.UserDao;
+import com.upgrad.quora.service.dao.VersionedRow;
+import com.upgrad.quora.service.entity.AnswerEntity;
 import com.upgrad.quora.service.entity.QuestionEntity;
 import com.upgrad.quora.service.entity.UserAuthTokenEntity;
 import com.upgrad.quora.service.entity.UserEntity;
 import com.upgrad.quora.service.exception.AuthorizationFailedException;
+import com.upgrad.quora.service.exception.InvalidCursorException;
 import com.upgrad.quora.service.exception.InvalidQuestionException;
+import com.upgrad.quora.service.exception.PreconditionFailedException;
 import com.upgrad.quora.service.exception.UserNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Service
 public class QuestionService implements EndPointIdentifier {
@@ -26,6 +38,12 @@ public class QuestionService implements EndPointIdentifier {
     @Autowired
     QuestionDao questionDao;
 
+    @Autowired
+    QuestionListingDao questionListingDao;
+
+    @Autowired
+    ListingStreamDao listingStreamDao;
+
     @Autowired
     AuthorizationService authorizationService;
 
@@ -33,7 +51,25 @@ public class QuestionService implements EndPointIdentifier {
     QuestionValidityCheckService questionValidityCheckService;
 
     @Autowired
-    UserAuthTokenValidifierService userAuthTokenValidifierService;
+    QuestionSearchIndex questionSearchIndex;
+
+    @Autowired
+    EntityCacheEviction entityCacheEviction;
+
+    @Autowired
+    QuestionMutationDao questionMutationDao;
+
+    @Value("${quora.pagination.default-limit:20}")
+    private int defaultLimit;
+
+    @Value("${quora.pagination.max-limit:100}")
+    private int maxLimit;
+
+    @Value("${quora.search.default-limit:10}")
+    private int searchDefaultLimit;
+
+    @Value("${quora.search.max-limit:50}")
+    private int searchMaxLimit;
 
     /**
      * Method to create a new user.
@@ -45,133 +81,166 @@ public class QuestionService implements EndPointIdentifier {
     @Transactional(propagation = Propagation.REQUIRED)
     public QuestionEntity createQuestion(final QuestionEntity questionEntity) {
 
-        return questionDao.createQuestion(questionEntity);
+        questionValidityCheckService.invalidate(questionEntity.getUuid());
+        QuestionEntity createdQuestionEntity = questionDao.createQuestion(questionEntity);
+        questionSearchIndex.put(createdQuestionEntity.getId(), createdQuestionEntity.getUuid(), createdQuestionEntity.getContent());
+        return createdQuestionEntity;
 
     }
 
     /**
-     * Method to get all the questions
+     * Method to get a page of all the questions, newest first
      *
-     * @param accessToken accessToken assigned to the user
-     * @return List<QuestionEntity> list of all the questions associated with the user
-     * @throws AuthorizationFailedException
+     * @param cursor cursor of the page, from the previous page, or null for the first page
+     * @param limit  requested number of questions, or null for the default; capped at the configured maximum
+     * @return KeysetPage<QuestionSummary> the questions of the page and the cursor of the next one
+     * @throws InvalidCursorException
      */
 
+    @Transactional(propagation = Propagation.REQUIRED, readOnly = true)
+    public KeysetPage<QuestionSummary> getAllQuestions(String cursor, Integer limit) throws InvalidCursorException {
 
-    @Transactional(propagation = Propagation.REQUIRED)
-    public List<QuestionEntity> getAllQuestions(String accessToken) throws AuthorizationFailedException {
-        UserAuthTokenEntity userAuthTokenEntity = userDao.findUserAuthTokenEntityByAccessToken(accessToken);
+        final int pageSize = pageSize(limit);
+        return toPage(questionListingDao.getQuestions(cursor == null ? null : KeysetCursor.decode(cursor), pageSize + 1),
+                pageSize);
+    }
 
-        List<QuestionEntity> questionEntityList = new ArrayList<>();
+    /**
+     * Method to stream all the questions, newest first, through a database cursor, without holding them in memory
+     *
+     * @param consumer called with every question
+     */
 
-        if (userAuthTokenValidifierService.userAuthTokenValidityCheck(accessToken, GET_ALL_QUESTIONS)) {
-            questionEntityList = questionDao.getAllQuestions();
-        }
-        return questionEntityList;
+    @Transactional(propagation = Propagation.REQUIRED, readOnly = true)
+    public void streamAllQuestions(Consumer<QuestionSummary> consumer) {
 
+        listingStreamDao.forEachQuestion(consumer);
+    }
 
+    /**
+     * Method to search the content of all the questions, answered from the in-process question index
+     *
+     * @param query text to be searched
+     * @param limit requested number of questions, or null for the default; capped at the configured maximum
+     * @return List<SearchHit> the questions most relevant to the query, best first
+     */
+
+    public List<SearchHit> searchQuestions(String query, Integer limit) {
+
+        final int searchLimit = limit == null || limit < 1 ? searchDefaultLimit : Math.min(limit, searchMaxLimit);
+        return questionSearchIndex.search(query == null ? "" : query, searchLimit);
     }
 
     /**
-     * @param accessToken accessToken assigned to the user
-     * @param questionId  the uuid of the question
-     * @return QuestionEntity
+     * Method to edit the content of a question in a single statement that only matches a question of the signed in user.
+     * When the client sent the version it read, the statement also only matches that version, so that a concurrent edit
+     * is not overwritten. Why nothing was edited is only looked up when nothing was edited.
+     *
+     * @param userAuthTokenEntity session of the signed in user, already authorized for the endpoint
+     * @param questionId          the uuid of the question
+     * @param content             new content of the question
+     * @param expectedVersion     version of the question the edit is based on, or null to edit whatever the version
+     * @return new version of the edited question
      * @throws AuthorizationFailedException
      * @throws InvalidQuestionException
+     * @throws PreconditionFailedException in cases where the question was changed since the expected version
      */
 
     @Transactional(propagation = Propagation.REQUIRED)
-    public QuestionEntity checkQuestion(String accessToken, String questionId) throws AuthorizationFailedException, InvalidQuestionException {
+    public Integer editQuestionContent(UserAuthTokenEntity userAuthTokenEntity, String questionId, String content,
+                                       Integer expectedVersion)
+            throws AuthorizationFailedException, InvalidQuestionException, PreconditionFailedException {
 
-        UserAuthTokenEntity userAuthTokenEntity = userDao.findUserAuthTokenEntityByAccessToken(accessToken);
-        QuestionEntity existingQuestionEntity = null;
-        if (userAuthTokenValidifierService.userAuthTokenValidityCheck(accessToken, CHECK_QUESTION)) {
-            UserEntity user = userAuthTokenEntity.getUser();
+        UserEntity user = userAuthTokenEntity.getUser();
 
-            existingQuestionEntity = questionValidityCheckService.checkQuestionIsValid(questionId);
+        VersionedRow edited = questionMutationDao.updateContent(questionId, content, user.getId(), expectedVersion);
 
-            if (!user.equals(existingQuestionEntity.getUser())) {
+        if (edited == null) {
+            VersionedRow current = questionMutationDao.findVersionedRow(questionId);
+            if (current == null) {
+                throw new InvalidQuestionException("QUES-001", "Entered question uuid does not exist");
+            }
+            if (!current.getUserId().equals(user.getId())) {
                 throw new AuthorizationFailedException("ATHR-003", "Only the question owner can edit the question");
-            } else {
-                return existingQuestionEntity;
             }
-
+            throw new PreconditionFailedException("VER-001",
+                    "The question was changed by another request, current version is " + current.getVersion());
         }
-        return existingQuestionEntity;
-    }
-
-
-    /**
-     * Method to update a question
-     *
-     * @param questionEntity to be updated
-     * @return updated questionEntity
-     */
-
-    @Transactional(propagation = Propagation.REQUIRED)
-    public QuestionEntity updateQuestion(QuestionEntity questionEntity) {
-        return questionDao.updateQuestion(questionEntity);
+        questionValidityCheckService.invalidate(questionId);
+        questionSearchIndex.put(edited.getId(), questionId, content);
+        entityCacheEviction.evictAfterCommit(QuestionEntity.class, edited.getId());
+        return edited.getVersion();
     }
 
     /**
      * Method to delete a given question
      *
-     * @param questionId  uuid of the question to be deleted
-     * @param accessToken accessId assigned to the user
+     * @param questionId          uuid of the question to be deleted
+     * @param userAuthTokenEntity session of the signed in user, already authorized for the endpoint
      * @return uuid of the deleted question
      * @throws AuthorizationFailedException
      * @throws InvalidQuestionException
      */
 
     @Transactional(propagation = Propagation.REQUIRED)
-    public String deleteQuestion(String questionId, String accessToken) throws AuthorizationFailedException, InvalidQuestionException {
-        UserAuthTokenEntity userAuthTokenEntity = userDao.findUserAuthTokenEntityByAccessToken(accessToken);
+    public String deleteQuestion(String questionId, UserAuthTokenEntity userAuthTokenEntity) throws AuthorizationFailedException, InvalidQuestionException {
 
-        String deletedQuestionid = null;
-        if (userAuthTokenValidifierService.userAuthTokenValidityCheck(accessToken, DELETE_QUESTION)) {
-            UserEntity user = userAuthTokenEntity.getUser();
+        UserEntity user = userAuthTokenEntity.getUser();
 
-            QuestionEntity existingQuestionEntity = questionValidityCheckService.checkQuestionIsValid(questionId);
+        Integer id = questionMutationDao.delete(questionId, user.getId(), "admin".equals(user.getRole()));
 
-            if ((!user.equals(existingQuestionEntity.getUser()) || (!user.getRole().equals("admin")))) {
-                throw new AuthorizationFailedException("ATHR-003", "Only the question owner or admin can delete the question");
-            } else {
-                questionDao.deleteUserByUUID(questionId);
-                deletedQuestionid = questionId;
-                return (deletedQuestionid);
+        if (id == null) {
+            if (!questionMutationDao.exists(questionId)) {
+                throw new InvalidQuestionException("QUES-001", "Entered question uuid does not exist");
             }
+            throw new AuthorizationFailedException("ATHR-003", "Only the question owner or admin can delete the question");
         }
-        return deletedQuestionid;
+        questionValidityCheckService.invalidate(questionId);
+        questionSearchIndex.remove(id);
+        entityCacheEviction.evictAfterCommit(QuestionEntity.class, id);
+        // The answers to the question are deleted by ON DELETE CASCADE, behind the back of the answer cache region
+        entityCacheEviction.evictAfterCommit(AnswerEntity.class);
+        return questionId;
     }
 
     /**
-     * Method to get all the questions by a given user
+     * Method to get a page of the questions by a given user, newest first
      *
-     * @param accessToken accessToken assigned to the user
-     * @param userId      uuid of the user
-     * @return List<QuestionEntity> list of all the questions by the corresponding user
-     * @throws AuthorizationFailedException
+     * @param userId uuid of the user
+     * @param cursor cursor of the page, from the previous page, or null for the first page
+     * @param limit  requested number of questions, or null for the default; capped at the configured maximum
+     * @return KeysetPage<QuestionSummary> the questions of the corresponding user in the page and the cursor of the next one
      * @throws UserNotFoundException
+     * @throws InvalidCursorException
      */
 
-    @Transactional(propagation = Propagation.REQUIRED)
-    public List<QuestionEntity> getAllQuestionsByUser(String accessToken, String userId) throws AuthorizationFailedException, UserNotFoundException {
-        UserAuthTokenEntity userAuthTokenEntity = userDao.findUserAuthTokenEntityByAccessToken(accessToken);
-
+    @Transactional(propagation = Propagation.REQUIRED, readOnly = true)
+    public KeysetPage<QuestionSummary> getAllQuestionsByUser(String userId, String cursor, Integer limit)
+            throws UserNotFoundException, InvalidCursorException {
 
-        List<QuestionEntity> questionEntityList = new ArrayList<>();
         if (userDao.findUserByUUID(userId) == null) {
 
             throw new UserNotFoundException("USR-001", "User with entered uuid whose question details are to be seen does not exist");
+        }
 
-        } else if (userAuthTokenValidifierService.userAuthTokenValidityCheck(accessToken, GET_QUESTION_BY_USER)) {
-
-            UserEntity userEntity = userAuthTokenEntity.getUser();
+        final int pageSize = pageSize(limit);
+        return toPage(questionListingDao.getQuestionsByUser(userId, cursor == null ? null : KeysetCursor.decode(cursor),
+                pageSize + 1), pageSize);
+    }
 
-            questionEntityList = questionDao.getQuestionByUser(userEntity);
+    private int pageSize(Integer limit) {
+        return limit == null || limit < 1 ? defaultLimit : Math.min(limit, maxLimit);
+    }
 
-            return questionEntityList;
+    /**
+     * One question more than the page size is fetched, only to tell whether a next page exists.
+     */
+    private static KeysetPage<QuestionSummary> toPage(List<QuestionSummary> questions, int pageSize) {
+        if (questions.size() <= pageSize) {
+            return new KeysetPage<>(questions, null);
         }
-        return questionEntityList;
+        List<QuestionSummary> page = questions.subList(0, pageSize);
+        QuestionSummary last = page.get(pageSize - 1);
+        return new KeysetPage<>(page, KeysetCursor.encode(last.getDate(), last.getId()));
     }
 }
@@ -1,13 +1,21 @@
 package com.upgrad.quora.service.business;
 
+import com.upgrad.quora.service.common.ExpiringCache;
 import com.upgrad.quora.service.dao.QuestionDao;
 import com.upgrad.quora.service.entity.QuestionEntity;
 import com.upgrad.quora.service.exception.InvalidQuestionException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
 
 /**
  * Method to provide service for validating a question through a uuid
+ * Questions are read through an in-process cache by uuid, and uuids that do not exist are remembered for a short time as well.
+ * Cached questions are shared between requests and must not be modified; edits and deletes do not load the question.
  */
 @Service
 public class QuestionValidityCheckService {
@@ -15,8 +23,44 @@ public class QuestionValidityCheckService {
     @Autowired
     QuestionDao questionDao;
 
+    @Value("${quora.question-cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${quora.question-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${quora.question-cache.unknown-ttl-seconds:30}")
+    private long unknownTtlSeconds;
+
+    private ExpiringCache<String, QuestionEntity> questions;
+
+    private ExpiringCache<String, Boolean> unknownQuestions;
+
+    @PostConstruct
+    void init() {
+        questions = new ExpiringCache<>(maxSize);
+        unknownQuestions = new ExpiringCache<>(maxSize);
+    }
+
+    /**
+     * Method to get a question for reading, going to the DB only on a cache miss.
+     *
+     * @param uuid uuid of the question
+     * @return QuestionEntity shared with other requests, not to be modified
+     * @throws InvalidQuestionException in cases where the question does not exist
+     */
     QuestionEntity checkQuestionIsValid(String uuid) throws InvalidQuestionException {
-        QuestionEntity existingQuestionEntity = questionDao.getQuestionById(uuid);
+        QuestionEntity existingQuestionEntity = questions.get(uuid);
+
+        if (existingQuestionEntity == null && unknownQuestions.get(uuid) == null) {
+            existingQuestionEntity = questionDao.getQuestionById(uuid);
+            long now = System.currentTimeMillis();
+            if (existingQuestionEntity != null) {
+                questions.put(uuid, existingQuestionEntity, now + ttlSeconds * 1000);
+            } else {
+                unknownQuestions.put(uuid, Boolean.TRUE, now + unknownTtlSeconds * 1000);
+            }
+        }
 
         if (existingQuestionEntity == null) {
             throw new InvalidQuestionException("QUES-001", "Entered question uuid does not exist");
@@ -24,4 +68,75 @@ public class QuestionValidityCheckService {
             return existingQuestionEntity;
         }
     }
+
+    /**
+     * Method to drop a question from the cache once it is created, modified or deleted.
+     * Within a transaction it is dropped again after completion, so that a read made before the commit is not kept.
+     *
+     * @param uuid uuid of the question
+     */
+    void invalidate(final String uuid) {
+        questions.invalidate(uuid);
+        unknownQuestions.invalidate(uuid);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    questions.invalidate(uuid);
+                    unknownQuestions.invalidate(uuid);
+                }
+            });
+        }
+    }
+
+    /**
+     * Method to drop every question from the cache, when questions were deleted without knowing their uuids.
+     * Within a transaction they are dropped again after completion.
+     */
+    void invalidateAll() {
+        questions.invalidateAll();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    questions.invalidateAll();
+                }
+            });
+        }
+    }
+
+    public int getSize() {
+        return questions.size();
+    }
+
+    public long getHits() {
+        return questions.getHits();
+    }
+
+    public long getMisses() {
+        return questions.getMisses();
+    }
+
+    public long getEvictions() {
+        return questions.getEvictions();
+    }
+
+    /**
+     * @return share of the lookups answered without going to the DB, counting the uuids remembered as not existing
+     */
+    public double getHitRatio() {
+        long lookups = questions.getHits() + questions.getMisses();
+        return lookups == 0 ? 0 : (double) (questions.getHits() + unknownQuestions.getHits()) / lookups;
+    }
+
+    public int getUnknownQuestionsSize() {
+        return unknownQuestions.size();
+    }
+
+    /**
+     * @return number of lookups of questions that do not exist answered without going to the DB
+     */
+    public long getUnknownQuestionHits() {
+        return unknownQuestions.getHits();
+    }
 }
@@ -0,0 +1,29 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.dao.AnswerSummary;
+import com.upgrad.quora.service.dao.QuestionSummary;
+
+import java.util.List;
+
+/**
+ * A question of a batch read together with its first answers, oldest first.
+ */
+public class QuestionWithAnswers {
+
+    private final QuestionSummary question;
+
+    private final List<AnswerSummary> answers;
+
+    public QuestionWithAnswers(final QuestionSummary question, final List<AnswerSummary> answers) {
+        this.question = question;
+        this.answers = answers;
+    }
+
+    public QuestionSummary getQuestion() {
+        return question;
+    }
+
+    public List<AnswerSummary> getAnswers() {
+        return answers;
+    }
+}
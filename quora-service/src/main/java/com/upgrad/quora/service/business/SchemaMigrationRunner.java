@@ -0,0 +1,166 @@
+package com.upgrad.quora.service.business;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Applies at startup the migrations of quora-db that SCHEMA_VERSION does not record yet, in version order.
+ * Every statement runs in its own transaction, as CREATE INDEX CONCURRENTLY cannot run in a transaction block; each migration
+ * is idempotent and records itself in SCHEMA_VERSION as its last statement, so that a migration interrupted half way is
+ * simply run again, and the same scripts can be run by the migrate profile of quora-db. Instances starting together take
+ * turns through an advisory lock.
+ */
+@Component
+public class SchemaMigrationRunner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SchemaMigrationRunner.class);
+
+    private static final Pattern MIGRATION_NAME = Pattern.compile("V(\\d+)__(.+)\\.sql");
+
+    // Key of the advisory lock held while migrating, arbitrary but fixed
+    private static final long LOCK_KEY = 0x51554f5241L;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Value("${quora.migration.enabled:true}")
+    private boolean enabled;
+
+    @Value("${quora.migration.location:classpath*:sql/migration/}")
+    private String location;
+
+    @PostConstruct
+    void migrate() throws IOException, SQLException {
+        if (!enabled) {
+            return;
+        }
+        final List<Resource> migrations = findMigrations();
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("select pg_advisory_lock(" + LOCK_KEY + ")");
+                try {
+                    statement.execute("create table if not exists SCHEMA_VERSION(version INTEGER PRIMARY KEY, "
+                            + "description VARCHAR(200) NOT NULL, installed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)");
+                    final Set<Integer> applied = getAppliedVersions(statement);
+                    for (Resource migration : migrations) {
+                        if (!applied.contains(versionOf(migration))) {
+                            apply(statement, migration);
+                        }
+                    }
+                } finally {
+                    statement.execute("select pg_advisory_unlock(" + LOCK_KEY + ")");
+                }
+            }
+        }
+    }
+
+    private List<Resource> findMigrations() throws IOException {
+        final List<Resource> migrations = new ArrayList<>();
+        for (Resource resource : new PathMatchingResourcePatternResolver().getResources(location + "V*__*.sql")) {
+            if (MIGRATION_NAME.matcher(resource.getFilename()).matches()) {
+                migrations.add(resource);
+            }
+        }
+        migrations.sort(Comparator.comparingInt(SchemaMigrationRunner::versionOf));
+        return migrations;
+    }
+
+    private static Set<Integer> getAppliedVersions(final Statement statement) throws SQLException {
+        final Set<Integer> versions = new HashSet<>();
+        try (ResultSet resultSet = statement.executeQuery("select version from SCHEMA_VERSION")) {
+            while (resultSet.next()) {
+                versions.add(resultSet.getInt(1));
+            }
+        }
+        return versions;
+    }
+
+    private void apply(final Statement statement, final Resource migration) throws IOException, SQLException {
+        final long start = System.currentTimeMillis();
+        final String script = StreamUtils.copyToString(migration.getInputStream(), StandardCharsets.UTF_8);
+        dropInvalidIndexes(statement, script);
+        for (String sql : splitStatements(script)) {
+            statement.execute(sql);
+        }
+        LOGGER.info("Migration {} applied in {} ms", migration.getFilename(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * A concurrent index build that failed leaves an invalid index behind, which IF NOT EXISTS would then keep; the ones the
+     * migration creates are dropped so that it builds them again.
+     */
+    private static void dropInvalidIndexes(final Statement statement, final String script) throws SQLException {
+        final String lowerCaseScript = script.toLowerCase(Locale.ROOT);
+        final List<String> invalidIndexes = new ArrayList<>();
+        try (ResultSet resultSet = statement.executeQuery("select c.relname from pg_index i "
+                + "join pg_class c on c.oid = i.indexrelid where not i.indisvalid")) {
+            while (resultSet.next()) {
+                invalidIndexes.add(resultSet.getString(1));
+            }
+        }
+        for (String index : invalidIndexes) {
+            if (Pattern.compile("\\b" + Pattern.quote(index) + "\\b").matcher(lowerCaseScript).find()) {
+                LOGGER.warn("Dropping invalid index {} left by an interrupted migration", index);
+                statement.execute("drop index concurrently if exists \"" + index + "\"");
+            }
+        }
+    }
+
+    /**
+     * @param script migration script, of statements each ending with a semicolon at the end of a line
+     * @return the statements of the script, without comment lines
+     */
+    private static List<String> splitStatements(final String script) {
+        final List<String> statements = new ArrayList<>();
+        final StringBuilder current = new StringBuilder();
+        for (String line : script.split("\\r?\\n")) {
+            final String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+                continue;
+            }
+            if (trimmed.endsWith(";")) {
+                current.append(trimmed, 0, trimmed.length() - 1);
+                statements.add(current.toString().trim());
+                current.setLength(0);
+            } else {
+                current.append(trimmed).append('\n');
+            }
+        }
+        if (current.toString().trim().length() > 0) {
+            statements.add(current.toString().trim());
+        }
+        return statements;
+    }
+
+    private static int versionOf(final Resource migration) {
+        final Matcher matcher = MIGRATION_NAME.matcher(migration.getFilename());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Not a migration: " + migration.getFilename());
+        }
+        return Integer.parseInt(matcher.group(1));
+    }
+}
@@ -0,0 +1,130 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.dao.UserAuthDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Scheduled purge of user_auth rows whose session expired or was signed out longer ago than the retention period.
+ * Rows are deleted in chunks walked in ID order, each chunk in its own short statement with a pause in between, so the purge
+ * never holds locks on a large part of the table nor competes with signins for long. The pauses only hold the thread of the
+ * purge, as every scheduled job has its own thread of the pool of ServiceConfiguration.
+ */
+@Component
+public class SessionPurgeJob {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SessionPurgeJob.class);
+
+    @Autowired
+    private UserAuthDao userAuthDao;
+
+    @Value("${quora.auth.session-purge.enabled:true}")
+    private boolean enabled;
+
+    @Value("${quora.auth.session-purge.retention-hours:24}")
+    private long retentionHours;
+
+    @Value("${quora.auth.session-purge.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${quora.auth.session-purge.pause-ms:100}")
+    private long pauseMillis;
+
+    private final LongAdder deletedCount = new LongAdder();
+
+    private final LongAdder chunkCount = new LongAdder();
+
+    private volatile boolean running;
+
+    private volatile long lastId;
+
+    private volatile long lastRunDeletedCount;
+
+    private volatile long lastRunDurationMillis;
+
+    private volatile long lastRunFinishedAt;
+
+    /**
+     * Deletes every purgeable session, chunk by chunk.
+     */
+    @Scheduled(initialDelayString = "${quora.auth.session-purge.initial-delay-ms:60000}",
+            fixedDelayString = "${quora.auth.session-purge.interval-ms:3600000}")
+    public void purge() {
+        if (!enabled) {
+            return;
+        }
+        final long startedAt = System.currentTimeMillis();
+        final Timestamp cutoff = new Timestamp(startedAt - retentionHours * 3_600_000L);
+        running = true;
+        lastId = 0;
+        long deleted = 0;
+        try {
+            while (true) {
+                List<Long> ids = userAuthDao.getPurgeableIds(lastId, cutoff, chunkSize);
+                if (ids.isEmpty()) {
+                    break;
+                }
+                final long fromId = ids.get(0);
+                final long toId = ids.get(ids.size() - 1);
+                final int chunkDeleted = userAuthDao.deletePurgeable(fromId, toId, cutoff);
+                deleted += chunkDeleted;
+                deletedCount.add(chunkDeleted);
+                chunkCount.increment();
+                lastId = toId;
+                if (ids.size() < chunkSize) {
+                    break;
+                }
+                Thread.sleep(pauseMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            LOGGER.error("Purging user_auth stopped after ID {}", lastId, e);
+        } finally {
+            running = false;
+            lastRunDeletedCount = deleted;
+            lastRunFinishedAt = System.currentTimeMillis();
+            lastRunDurationMillis = lastRunFinishedAt - startedAt;
+        }
+        LOGGER.info("Purged {} sessions from user_auth in {} ms", deleted, lastRunDurationMillis);
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * @return ID up to which the current, or else the last, run has purged
+     */
+    public long getLastId() {
+        return lastId;
+    }
+
+    public long getDeletedCount() {
+        return deletedCount.sum();
+    }
+
+    public long getChunkCount() {
+        return chunkCount.sum();
+    }
+
+    public long getLastRunDeletedCount() {
+        return lastRunDeletedCount;
+    }
+
+    public long getLastRunDurationMillis() {
+        return lastRunDurationMillis;
+    }
+
+    public long getLastRunFinishedAt() {
+        return lastRunFinishedAt;
+    }
+}
@@ -0,0 +1,210 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.dao.UserAuthDao;
+import com.upgrad.quora.service.entity.UserAuthTokenEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Optional write-behind of new sessions to user_auth.
+ * When enabled, a signin only queues its session, which is served from memory until it is written; queued sessions are
+ * inserted in JDBC batches every flush interval, or as soon as a batch worth of them is waiting, and on shutdown.
+ * Sessions still queued when the process dies without shutting down are lost, and their users have to sign in again.
+ * When a batch fails its sessions are written one at a time, so that a session that can never be written, e.g. of a user
+ * deleted meanwhile, is dropped on its own instead of holding the others of its batch back.
+ */
+@Component
+public class SessionWriteBehind {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SessionWriteBehind.class);
+
+    @Autowired
+    private UserAuthDao userAuthDao;
+
+    @Value("${quora.auth.session-write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${quora.auth.session-write-behind.batch-size:500}")
+    private int batchSize;
+
+    private final ConcurrentLinkedQueue<UserAuthTokenEntity> queue = new ConcurrentLinkedQueue<>();
+
+    private final Map<String, UserAuthTokenEntity> pendingByToken = new ConcurrentHashMap<>();
+
+    private final AtomicInteger queued = new AtomicInteger();
+
+    // Only one thread writes at a time, the others leave the queue to it
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final LongAdder writtenCount = new LongAdder();
+
+    private final LongAdder batchCount = new LongAdder();
+
+    private final LongAdder failedBatchCount = new LongAdder();
+
+    private final LongAdder droppedCount = new LongAdder();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Method to queue a new session for insertion.
+     *
+     * @param userAuthTokenEntity the session to be written
+     */
+    public void enqueue(final UserAuthTokenEntity userAuthTokenEntity) {
+        pendingByToken.put(userAuthTokenEntity.getAccessToken(), userAuthTokenEntity);
+        queue.add(userAuthTokenEntity);
+        if (queued.incrementAndGet() >= batchSize && flushLock.tryLock()) {
+            try {
+                writeQueued();
+            } finally {
+                flushLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * @param accessToken access token of the session
+     * @return the queued session of the access token, or null if it is not waiting to be written
+     */
+    public UserAuthTokenEntity getPending(final String accessToken) {
+        return pendingByToken.get(accessToken);
+    }
+
+    /**
+     * Method to write the session of an access token now if it is still queued, e.g. before it is signed out in the DB.
+     *
+     * @param accessToken access token of the session
+     */
+    public void flush(final String accessToken) {
+        if (pendingByToken.containsKey(accessToken)) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes every queued session, waiting for a write in progress on another thread.
+     */
+    @Scheduled(fixedDelayString = "${quora.auth.session-write-behind.flush-interval-ms:200}")
+    public void flush() {
+        if (queued.get() == 0) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            writeQueued();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flush();
+        if (queued.get() > 0) {
+            LOGGER.error("{} sessions could not be written to user_auth on shutdown", queued.get());
+        }
+    }
+
+    private void writeQueued() {
+        List<UserAuthTokenEntity> batch = new ArrayList<>(batchSize);
+        while (true) {
+            UserAuthTokenEntity userAuthTokenEntity;
+            while (batch.size() < batchSize && (userAuthTokenEntity = queue.poll()) != null) {
+                batch.add(userAuthTokenEntity);
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                userAuthDao.insertAll(batch);
+            } catch (RuntimeException e) {
+                failedBatchCount.increment();
+                LOGGER.warn("Writing {} sessions to user_auth in one batch failed, writing them one at a time", batch.size(), e);
+                if (!writeOneByOne(batch)) {
+                    return;
+                }
+                batch.clear();
+                continue;
+            }
+            for (UserAuthTokenEntity written : batch) {
+                done(written);
+            }
+            writtenCount.add(batch.size());
+            batchCount.increment();
+            batch.clear();
+        }
+    }
+
+    /**
+     * @param batch sessions of a failed batch
+     * @return false in cases where a session failed for a reason other than its data, after leaving it and the following
+     * sessions queued for the next flush
+     */
+    private boolean writeOneByOne(final List<UserAuthTokenEntity> batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            final UserAuthTokenEntity session = batch.get(i);
+            try {
+                userAuthDao.insertAll(Collections.singletonList(session));
+                writtenCount.increment();
+            } catch (DataIntegrityViolationException e) {
+                // Fails the same way however often it is retried, e.g. the user was deleted after signing in
+                droppedCount.increment();
+                LOGGER.error("Dropping the session of user {} that cannot be written to user_auth", session.getUuid(), e);
+            } catch (RuntimeException e) {
+                // Leave the rest queued for the next flush rather than dropping the sessions
+                queue.addAll(batch.subList(i, batch.size()));
+                LOGGER.error("Writing {} sessions to user_auth failed, retrying with the next flush", batch.size() - i, e);
+                return false;
+            }
+            done(session);
+        }
+        return true;
+    }
+
+    private void done(final UserAuthTokenEntity session) {
+        pendingByToken.remove(session.getAccessToken(), session);
+        queued.decrementAndGet();
+    }
+
+    public int getQueuedCount() {
+        return queued.get();
+    }
+
+    public long getWrittenCount() {
+        return writtenCount.sum();
+    }
+
+    public long getBatchCount() {
+        return batchCount.sum();
+    }
+
+    public long getFailedBatchCount() {
+        return failedBatchCount.sum();
+    }
+
+    /**
+     * @return number of sessions dropped because they could never be written, e.g. of users deleted before the write
+     */
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+}
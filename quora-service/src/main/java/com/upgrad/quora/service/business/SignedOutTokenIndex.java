@@ -0,0 +1,107 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.common.BloomFilter;
+import com.upgrad.quora.service.dao.UserAuthDao;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.sql.Timestamp;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory index of signed out access tokens that have not expired yet.
+ * A Bloom filter answers the common "not revoked" case without any lookup; probable hits are confirmed against an exact set.
+ * Entries are pruned once the token has expired, since an expired token is rejected anyway.
+ */
+@Component
+public class SignedOutTokenIndex {
+
+    @Autowired
+    private UserAuthDao userAuthDao;
+
+    @Value("${quora.auth.revocation.expected-tokens:100000}")
+    private long expectedTokens;
+
+    @Value("${quora.auth.revocation.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    private final Map<String, Long> expiryByToken = new ConcurrentHashMap<>();
+
+    // Revocations share the read lock; a rebuild takes the write lock so no revocation can slip past the new filter
+    private final ReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+
+    private volatile BloomFilter bloomFilter;
+
+    /**
+     * Rebuilds the index from user_auth, so tokens signed out before a restart stay revoked.
+     */
+    @PostConstruct
+    void init() {
+        for (Object[] row : userAuthDao.getSignedOutUnexpiredTokens()) {
+            expiryByToken.put((String) row[0], ((Timestamp) row[1]).getTime());
+        }
+        rebuild();
+    }
+
+    /**
+     * Method to record a signed out access token.
+     *
+     * @param accessToken lookup key of the access token of the session, as stored in user_auth
+     * @param expiresAt   epoch millis at which the session expires
+     */
+    public void revoke(final String accessToken, final long expiresAt) {
+        if (expiresAt <= System.currentTimeMillis()) {
+            return;
+        }
+        rebuildLock.readLock().lock();
+        try {
+            expiryByToken.put(accessToken, expiresAt);
+            bloomFilter.put(accessToken);
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param accessToken lookup key of the access token of the session, as stored in user_auth
+     * @return true if the access token is known to be signed out; false means the DB is the only one who can tell
+     */
+    public boolean isRevoked(final String accessToken) {
+        if (accessToken == null || !bloomFilter.mightContain(accessToken)) {
+            return false;
+        }
+        Long expiresAt = expiryByToken.get(accessToken);
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
+    /**
+     * Drops expired tokens and rebuilds the Bloom filter so that it does not fill up with them.
+     */
+    @Scheduled(fixedDelayString = "${quora.auth.revocation.prune-interval-ms:60000}")
+    public void prune() {
+        final long now = System.currentTimeMillis();
+        expiryByToken.values().removeIf(expiresAt -> expiresAt <= now);
+        rebuild();
+    }
+
+    private void rebuild() {
+        rebuildLock.writeLock().lock();
+        try {
+            BloomFilter rebuilt = new BloomFilter(Math.max(expectedTokens, expiryByToken.size() * 2L), falsePositiveRate);
+            expiryByToken.keySet().forEach(rebuilt::put);
+            bloomFilter = rebuilt;
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+    }
+
+    public int getSize() {
+        return expiryByToken.size();
+    }
+}
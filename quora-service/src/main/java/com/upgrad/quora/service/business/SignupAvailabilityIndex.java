@@ -0,0 +1,137 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.common.BloomFilter;
+import com.upgrad.quora.service.dao.UserIdentityDao;
+import com.upgrad.quora.service.exception.SignUpRestrictedException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Answers whether a username and an email are still free for signup.
+ * A Bloom filter of every taken username and email, loaded at startup and extended on each signup, tells "definitely free"
+ * without touching the DB; only probable collisions are confirmed with a single query. The unique constraints on USERS
+ * remain the final arbiter for signups racing each other.
+ */
+@Component
+public class SignupAvailabilityIndex {
+
+    private static final String USERNAME_PREFIX = "u:";
+
+    private static final String EMAIL_PREFIX = "e:";
+
+    @Autowired
+    private UserIdentityDao userIdentityDao;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${quora.signup.expected-users:1000000}")
+    private long expectedUsers;
+
+    @Value("${quora.signup.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    private BloomFilter bloomFilter;
+
+    private final LongAdder definitelyFreeCount = new LongAdder();
+
+    private final LongAdder queriedCount = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        // Usernames and emails share one filter, sized for both
+        bloomFilter = new BloomFilter(expectedUsers * 2, falsePositiveRate);
+        // Read through a cursor, which needs a transaction
+        final TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnlyTransaction.setReadOnly(true);
+        readOnlyTransaction.execute(status -> {
+            userIdentityDao.forEachUserNameAndEmail(this::add);
+            return null;
+        });
+    }
+
+    /**
+     * Method to check that a username and an email can be used for a new user.
+     *
+     * @param userName username of the new user
+     * @param email    email of the new user
+     * @throws SignUpRestrictedException in cases where username already exists, or email is already registered
+     */
+    public void checkAvailable(final String userName, final String email) throws SignUpRestrictedException {
+        if (!bloomFilter.mightContain(USERNAME_PREFIX + userName) && !bloomFilter.mightContain(EMAIL_PREFIX + email)) {
+            definitelyFreeCount.increment();
+            return;
+        }
+        queriedCount.increment();
+        checkTaken(userIdentityDao.findTaken(userName, email));
+    }
+
+    /**
+     * Method to find out which of a username and an email is taken, after the unique constraints rejected a new user.
+     *
+     * @param userName username of the new user
+     * @param email    email of the new user
+     * @throws SignUpRestrictedException in cases where username already exists, or email is already registered
+     */
+    public void checkTaken(final String userName, final String email) throws SignUpRestrictedException {
+        checkTaken(userIdentityDao.findTaken(userName, email));
+    }
+
+    /**
+     * Method to record the username and the email of a new user.
+     *
+     * @param userName username of the user
+     * @param email    email of the user
+     */
+    public void add(final String userName, final String email) {
+        if (userName != null) {
+            bloomFilter.put(USERNAME_PREFIX + userName);
+        }
+        if (email != null) {
+            bloomFilter.put(EMAIL_PREFIX + email);
+        }
+    }
+
+    /**
+     * @param userName username to be checked
+     * @return false if the username is definitely not taken
+     */
+    public boolean mightBeTakenUserName(final String userName) {
+        return bloomFilter.mightContain(USERNAME_PREFIX + userName);
+    }
+
+    /**
+     * @param email email to be checked
+     * @return false if the email is definitely not registered
+     */
+    public boolean mightBeTakenEmail(final String email) {
+        return bloomFilter.mightContain(EMAIL_PREFIX + email);
+    }
+
+    private static void checkTaken(final boolean[] taken) throws SignUpRestrictedException {
+        if (taken[0]) {
+            throw new SignUpRestrictedException("SGR-001", "Try any other Username, this Username has already been taken");
+        } else if (taken[1]) {
+            throw new SignUpRestrictedException("SGR-002", "This user has already been registered, try with any other emailId");
+        }
+    }
+
+    /**
+     * @return number of checks answered without going to the DB
+     */
+    public long getDefinitelyFreeCount() {
+        return definitelyFreeCount.sum();
+    }
+
+    /**
+     * @return number of checks that needed a query, because the username or the email might have been taken
+     */
+    public long getQueriedCount() {
+        return queriedCount.sum();
+    }
+}
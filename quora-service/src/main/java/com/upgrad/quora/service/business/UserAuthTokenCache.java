@@ -0,0 +1,164 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.common.ExpiringCache;
+import com.upgrad.quora.service.common.OpaqueAccessToken;
+import com.upgrad.quora.service.dao.UserDao;
+import com.upgrad.quora.service.entity.UserAuthTokenEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.util.Objects;
+
+/**
+ * In-process cache of user sessions keyed by access token, placed in front of UserDao.findUserAuthTokenEntityByAccessToken.
+ * An entry never outlives the EXPIRES_AT of its session and is dropped as soon as the user signs out.
+ * Access tokens that are not found are remembered for a short time as well, so repeated bogus tokens do not reach the DB.
+ */
+@Component
+public class UserAuthTokenCache {
+
+    @Autowired
+    private UserDao userDao;
+
+    @Autowired
+    private SessionWriteBehind sessionWriteBehind;
+
+    @Value("${quora.auth.token-cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${quora.auth.token-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${quora.auth.unknown-token-cache.max-size:10000}")
+    private int unknownTokensMaxSize;
+
+    @Value("${quora.auth.unknown-token-cache.ttl-seconds:30}")
+    private long unknownTokensTtlSeconds;
+
+    private ExpiringCache<String, UserAuthTokenEntity> sessions;
+
+    private ExpiringCache<String, Boolean> unknownTokens;
+
+    @PostConstruct
+    void init() {
+        sessions = new ExpiringCache<>(maxSize);
+        unknownTokens = new ExpiringCache<>(unknownTokensMaxSize);
+    }
+
+    /**
+     * Method to get the session of an access token, going to the DB only on a cache miss.
+     *
+     * @param accessToken access token assigned to the user
+     * @return UserAuthTokenEntity of the session, or null if the access token is unknown or has the shape of a stored digest
+     */
+    public UserAuthTokenEntity getUserAuthTokenEntity(final String accessToken) {
+        if (accessToken == null || OpaqueAccessToken.isStoredDigest(accessToken)) {
+            return null;
+        }
+        final String lookupKey = OpaqueAccessToken.toLookupKey(accessToken);
+        UserAuthTokenEntity userAuthTokenEntity = sessions.get(lookupKey);
+        if (userAuthTokenEntity == null) {
+            if (unknownTokens.get(lookupKey) != null) {
+                return null;
+            }
+            // A session evicted from the cache may still be waiting to be written to user_auth
+            userAuthTokenEntity = sessionWriteBehind.getPending(accessToken);
+            if (userAuthTokenEntity == null) {
+                userAuthTokenEntity = userDao.findUserAuthTokenEntityByAccessToken(lookupKey);
+            }
+            if (userAuthTokenEntity != null) {
+                put(userAuthTokenEntity);
+            } else {
+                unknownTokens.put(lookupKey, Boolean.TRUE, System.currentTimeMillis() + unknownTokensTtlSeconds * 1000);
+            }
+        }
+        return userAuthTokenEntity;
+    }
+
+    /**
+     * Method to cache a session until the earlier of its expiry time and the configured TTL.
+     * Used on signin as well, which also clears any remembered miss for the access token.
+     *
+     * @param userAuthTokenEntity the session to be cached
+     */
+    public void put(final UserAuthTokenEntity userAuthTokenEntity) {
+        // Sessions read from user_auth carry the lookup key already, which maps to itself
+        final String lookupKey = OpaqueAccessToken.toLookupKey(userAuthTokenEntity.getAccessToken());
+        unknownTokens.invalidate(lookupKey);
+        long expiresAt = System.currentTimeMillis() + ttlSeconds * 1000;
+        if (userAuthTokenEntity.getExpiresAt() != null) {
+            expiresAt = Math.min(expiresAt, userAuthTokenEntity.getExpiresAt().toInstant().toEpochMilli());
+        }
+        sessions.put(lookupKey, userAuthTokenEntity, expiresAt);
+    }
+
+    /**
+     * Method to drop a session from the cache, used on signout.
+     *
+     * @param accessToken access token of the session
+     */
+    public void invalidate(final String accessToken) {
+        sessions.invalidate(OpaqueAccessToken.toLookupKey(accessToken));
+    }
+
+    /**
+     * Method to drop every session of a user from the cache, used when the user is deleted together with the sessions.
+     * Within a transaction they are dropped again after completion, so that a session read before the commit is not kept.
+     *
+     * @param userId id of the user
+     */
+    public void invalidateUser(final Integer userId) {
+        invalidateSessionsOf(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidateSessionsOf(userId);
+                }
+            });
+        }
+    }
+
+    private void invalidateSessionsOf(final Integer userId) {
+        sessions.invalidateIf(session -> session.getUser() != null && Objects.equals(session.getUser().getId(), userId));
+    }
+
+    public int getSize() {
+        return sessions.size();
+    }
+
+    public long getHits() {
+        return sessions.getHits();
+    }
+
+    public long getMisses() {
+        return sessions.getMisses();
+    }
+
+    public long getEvictions() {
+        return sessions.getEvictions();
+    }
+
+    public double getHitRatio() {
+        return sessions.getHitRatio();
+    }
+
+    public int getUnknownTokensSize() {
+        return unknownTokens.size();
+    }
+
+    /**
+     * @return number of lookups of unknown access tokens answered without going to the DB
+     */
+    public long getUnknownTokenHits() {
+        return unknownTokens.getHits();
+    }
+
+    public long getUnknownTokenEvictions() {
+        return unknownTokens.getEvictions();
+    }
+}
@@ -0,0 +1,81 @@
+package com.upgrad.quora.service.business;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Outcome of a bulk user import.
+ */
+public class UserImportResult {
+
+    private int importedCount;
+
+    private long elapsedMillis;
+
+    private final List<RowError> errors = new ArrayList<>();
+
+    void addImported(final int count) {
+        importedCount += count;
+    }
+
+    void addError(final int rowNumber, final String code, final String message) {
+        errors.add(new RowError(rowNumber, code, message));
+    }
+
+    void finish(final long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+        errors.sort(Comparator.comparingInt(RowError::getRowNumber));
+    }
+
+    public int getImportedCount() {
+        return importedCount;
+    }
+
+    public int getFailedCount() {
+        return errors.size();
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * @return rows processed per second, imported and failed alike
+     */
+    public double getRowsPerSecond() {
+        return (importedCount + errors.size()) * 1000.0 / Math.max(1, elapsedMillis);
+    }
+
+    public List<RowError> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    public static class RowError {
+
+        private final int rowNumber;
+
+        private final String code;
+
+        private final String message;
+
+        RowError(final int rowNumber, final String code, final String message) {
+            this.rowNumber = rowNumber;
+            this.code = code;
+            this.message = message;
+        }
+
+        public int getRowNumber() {
+            return rowNumber;
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
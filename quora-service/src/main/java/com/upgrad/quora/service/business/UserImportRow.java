@@ -0,0 +1,49 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.entity.UserEntity;
+
+/**
+ * One row of a bulk user import: either a user to be created, or the reason the row could not be read.
+ */
+public class UserImportRow {
+
+    private final int rowNumber;
+
+    private final UserEntity userEntity;
+
+    private final String errorMessage;
+
+    private UserImportRow(final int rowNumber, final UserEntity userEntity, final String errorMessage) {
+        this.rowNumber = rowNumber;
+        this.userEntity = userEntity;
+        this.errorMessage = errorMessage;
+    }
+
+    /**
+     * @param rowNumber  number of the row in the upload, starting at 1 with the first user
+     * @param userEntity the user to be created, with the raw password
+     */
+    public static UserImportRow of(final int rowNumber, final UserEntity userEntity) {
+        return new UserImportRow(rowNumber, userEntity, null);
+    }
+
+    /**
+     * @param rowNumber    number of the row in the upload, starting at 1 with the first user
+     * @param errorMessage why the row could not be read
+     */
+    public static UserImportRow invalid(final int rowNumber, final String errorMessage) {
+        return new UserImportRow(rowNumber, null, errorMessage);
+    }
+
+    public int getRowNumber() {
+        return rowNumber;
+    }
+
+    public UserEntity getUserEntity() {
+        return userEntity;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+}
@@ -0,0 +1,247 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.common.GenericErrorCode;
+import com.upgrad.quora.service.common.UnexpectedException;
+import com.upgrad.quora.service.dao.UserIdentityDao;
+import com.upgrad.quora.service.entity.UserEntity;
+import com.upgrad.quora.service.exception.SignUpRestrictedException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+
+/**
+ * Creates users in bulk. Rows are taken in chunks: each chunk is checked for taken usernames and emails with one query each,
+ * its passwords are hashed in parallel on a fork-join pool, and its users are inserted in one JDBC batch.
+ * A row that cannot be imported is reported with its row number, and never stops the rest of the import.
+ */
+@Service
+public class UserImportService {
+
+    private static final String DEFAULT_PASSWORD = "quora@123";
+
+    // Maximum lengths of the USERS columns filled from the upload, checked per row so that no value fails a whole batch
+    private static final Map<String, Function<UserEntity, String>> FIELDS = new LinkedHashMap<>();
+
+    private static final Map<String, Integer> MAX_LENGTHS = new LinkedHashMap<>();
+
+    static {
+        field("user_name", UserEntity::getUserName, 30);
+        field("email_address", UserEntity::getEmailAddress, 50);
+        field("first_name", UserEntity::getFirstName, 30);
+        field("last_name", UserEntity::getLastName, 30);
+        field("country", UserEntity::getCountry, 30);
+        field("about_me", UserEntity::getAboutMe, 50);
+        field("dob", UserEntity::getDob, 30);
+        field("contact_number", UserEntity::getContactNumber, 30);
+    }
+
+    private static void field(final String name, final Function<UserEntity, String> getter, final int maxLength) {
+        FIELDS.put(name, getter);
+        MAX_LENGTHS.put(name, maxLength);
+    }
+
+    @Autowired
+    private UserIdentityDao userIdentityDao;
+
+    @Autowired
+    private PasswordCryptographyProvider passwordCryptographyProvider;
+
+    @Autowired
+    private SignupAvailabilityIndex signupAvailabilityIndex;
+
+    @Value("${quora.import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${quora.import.parallelism:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}")
+    private int parallelism;
+
+    private ForkJoinPool hashingPool;
+
+    @PostConstruct
+    void init() {
+        hashingPool = new ForkJoinPool(parallelism);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        hashingPool.shutdown();
+    }
+
+    /**
+     * Method to import users, reading the rows as they are processed so the upload never has to be held in memory.
+     *
+     * @param rows rows of the upload
+     * @return numbers of imported and failed rows, the errors of the failed rows, and the import throughput
+     */
+    public UserImportResult importUsers(final Iterator<UserImportRow> rows) {
+        final long startedAt = System.currentTimeMillis();
+        final UserImportResult result = new UserImportResult();
+        final Set<String> seenUserNames = new HashSet<>();
+        final Set<String> seenEmails = new HashSet<>();
+
+        final List<UserImportRow> chunk = new ArrayList<>(batchSize);
+        while (rows.hasNext()) {
+            final UserImportRow row = rows.next();
+            if (row.getUserEntity() == null) {
+                result.addError(row.getRowNumber(), "IMP-001", row.getErrorMessage());
+                continue;
+            }
+            chunk.add(row);
+            if (chunk.size() == batchSize) {
+                importChunk(chunk, result, seenUserNames, seenEmails);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, result, seenUserNames, seenEmails);
+        }
+
+        result.finish(System.currentTimeMillis() - startedAt);
+        return result;
+    }
+
+    private void importChunk(final List<UserImportRow> chunk, final UserImportResult result, final Set<String> seenUserNames,
+                             final Set<String> seenEmails) {
+
+        final List<UserImportRow> valid = new ArrayList<>(chunk.size());
+        for (UserImportRow row : chunk) {
+            final UserEntity userEntity = row.getUserEntity();
+            final String missingField = userEntity.getUserName() == null ? "user_name"
+                    : userEntity.getEmailAddress() == null ? "email_address"
+                    : userEntity.getFirstName() == null ? "first_name"
+                    : userEntity.getLastName() == null ? "last_name" : null;
+            final String tooLongField = missingField == null ? findTooLongField(userEntity) : null;
+            if (missingField != null) {
+                result.addError(row.getRowNumber(), "IMP-001", "Mandatory field " + missingField + " is missing");
+            } else if (tooLongField != null) {
+                result.addError(row.getRowNumber(), "IMP-001", "Field " + tooLongField + " is longer than "
+                        + MAX_LENGTHS.get(tooLongField) + " characters");
+            } else if (!seenUserNames.add(userEntity.getUserName())) {
+                addTakenError(result, row, "SGR-001");
+            } else if (!seenEmails.add(userEntity.getEmailAddress())) {
+                addTakenError(result, row, "SGR-002");
+            } else {
+                valid.add(row);
+            }
+        }
+
+        // Only values the signup index cannot rule out are looked up
+        final Set<String> takenUserNames = userIdentityDao.findTakenUserNames(valid.stream()
+                .map(row -> row.getUserEntity().getUserName())
+                .filter(signupAvailabilityIndex::mightBeTakenUserName).collect(Collectors.toList()));
+        final Set<String> takenEmails = userIdentityDao.findTakenEmails(valid.stream()
+                .map(row -> row.getUserEntity().getEmailAddress())
+                .filter(signupAvailabilityIndex::mightBeTakenEmail).collect(Collectors.toList()));
+
+        final List<UserImportRow> toInsert = new ArrayList<>(valid.size());
+        for (UserImportRow row : valid) {
+            if (takenUserNames.contains(row.getUserEntity().getUserName())) {
+                addTakenError(result, row, "SGR-001");
+            } else if (takenEmails.contains(row.getUserEntity().getEmailAddress())) {
+                addTakenError(result, row, "SGR-002");
+            } else {
+                toInsert.add(row);
+            }
+        }
+        if (toInsert.isEmpty()) {
+            return;
+        }
+
+        try {
+            hashingPool.submit(() -> toInsert.parallelStream().forEach(row -> {
+                final UserEntity userEntity = row.getUserEntity();
+                final String[] encryptedPassword = passwordCryptographyProvider.encrypt(
+                        userEntity.getPassword() == null ? DEFAULT_PASSWORD : userEntity.getPassword());
+                userEntity.setSalt(encryptedPassword[0]);
+                userEntity.setPassword(encryptedPassword[1]);
+                userEntity.setUuid(UUID.randomUUID().toString());
+                userEntity.setRole("nonadmin");
+            })).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UnexpectedException(GenericErrorCode.GEN_001, e);
+        } catch (ExecutionException e) {
+            throw new UnexpectedException(GenericErrorCode.GEN_001, e.getCause());
+        }
+
+        final boolean[] inserted = insert(toInsert, result);
+        int insertedCount = 0;
+        for (int i = 0; i < inserted.length; i++) {
+            final UserImportRow row = toInsert.get(i);
+            if (row == null) {
+                continue;
+            }
+            if (inserted[i]) {
+                insertedCount++;
+                signupAvailabilityIndex.add(row.getUserEntity().getUserName(), row.getUserEntity().getEmailAddress());
+            } else {
+                // Taken by a signup since the check above
+                try {
+                    signupAvailabilityIndex.checkTaken(row.getUserEntity().getUserName(), row.getUserEntity().getEmailAddress());
+                    result.addError(row.getRowNumber(), "IMP-002", "User conflicts with an existing user");
+                } catch (SignUpRestrictedException e) {
+                    result.addError(row.getRowNumber(), e.getCode(), e.getErrorMessage());
+                }
+            }
+        }
+        result.addImported(insertedCount);
+    }
+
+    private static String findTooLongField(final UserEntity userEntity) {
+        for (Map.Entry<String, Function<UserEntity, String>> field : FIELDS.entrySet()) {
+            final String value = field.getValue().apply(userEntity);
+            if (value != null && value.length() > MAX_LENGTHS.get(field.getKey())) {
+                return field.getKey();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Inserts the users of a chunk in one batch, or one by one when the batch fails, so that a row the DB rejects is
+     * reported on its own. Rows that failed are reported and replaced by null in the given list.
+     *
+     * @return for each row, true if it was inserted
+     */
+    private boolean[] insert(final List<UserImportRow> rows, final UserImportResult result) {
+        try {
+            return userIdentityDao.insertAll(rows.stream().map(UserImportRow::getUserEntity).collect(Collectors.toList()));
+        } catch (DataAccessException e) {
+            final boolean[] inserted = new boolean[rows.size()];
+            for (int i = 0; i < rows.size(); i++) {
+                final UserImportRow row = rows.get(i);
+                try {
+                    inserted[i] = userIdentityDao.insertAll(Collections.singletonList(row.getUserEntity()))[0];
+                } catch (DataAccessException rowException) {
+                    result.addError(row.getRowNumber(), "IMP-003", "User was rejected by the database");
+                    rows.set(i, null);
+                }
+            }
+            return inserted;
+        }
+    }
+
+    private static void addTakenError(final UserImportResult result, final UserImportRow row, final String code) {
+        result.addError(row.getRowNumber(), code, "SGR-001".equals(code)
+                ? "Try any other Username, this Username has already been taken"
+                : "This user has already been registered, try with any other emailId");
+    }
+}
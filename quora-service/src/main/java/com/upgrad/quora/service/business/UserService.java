@@ -1,16 +1,22 @@
 package com.upgrad.quora.service.business;
 
+import com.upgrad.quora.service.common.OpaqueAccessToken;
 import com.upgrad.quora.service.dao.UserDao;
 import com.upgrad.quora.service.entity.UserAuthTokenEntity;
 import com.upgrad.quora.service.entity.UserEntity;
 import com.upgrad.quora.service.exception.SignOutRestrictedException;
+import com.upgrad.quora.service.exception.SignUpRestrictedException;
 import com.upgrad.quora.service.exception.UserNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.ZonedDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 
 @Service
@@ -22,15 +28,39 @@ public class UserService {
     @Autowired
     private PasswordCryptographyProvider passwordCryptographyProvider;
 
+    @Autowired
+    private UserAuthTokenCache userAuthTokenCache;
+
+    @Autowired
+    private SignedOutTokenIndex signedOutTokenIndex;
+
+    @Autowired
+    private SessionWriteBehind sessionWriteBehind;
+
+    @Autowired
+    private SignupAvailabilityIndex signupAvailabilityIndex;
+
+    @Autowired
+    private PasswordHashingExecutor passwordHashingExecutor;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     /**
      * Method to create a new user.
+     * The password is hashed on the PasswordHashingExecutor, so the calling request thread is not held while hashing, and the
+     * user is inserted on its persistence pool. Username and email are checked before any hashing; the unique constraints of USERS catch signups racing each other.
      *
      * @param userEntity the UserEntity to be created
-     * @return created UserEntity
+     * @return future of the created UserEntity, completed exceptionally with ServiceUnavailableException in cases where the
+     * hashing pool is saturated, and with SignUpRestrictedException in cases where a concurrent signup took the username
+     * or the email
+     * @throws SignUpRestrictedException in cases where username already exists, or email is already registered
      */
 
-    @Transactional(propagation = Propagation.REQUIRED)
-    public UserEntity createUser(final UserEntity userEntity) {
+    public CompletableFuture<UserEntity> createUser(final UserEntity userEntity) throws SignUpRestrictedException {
+
+        signupAvailabilityIndex.checkAvailable(userEntity.getUserName(), userEntity.getEmailAddress());
 
         // If password is null, we will give the user a default password
         String password = userEntity.getPassword();
@@ -40,11 +70,26 @@ public class UserService {
         }
 
         // Generate salt and encrypt the password before creating the user
-        String[] encryptPassword = passwordCryptographyProvider.encrypt(userEntity.getPassword());
-        String salt = encryptPassword[0];
-        userEntity.setSalt(salt);
-        userEntity.setPassword(encryptPassword[1]);
-        return userDao.createUser(userEntity);
+        final String plainPassword = userEntity.getPassword();
+        return passwordHashingExecutor.submit(() -> passwordCryptographyProvider.encrypt(plainPassword))
+                .thenApplyAsync(encryptPassword -> {
+                    String salt = encryptPassword[0];
+                    userEntity.setSalt(salt);
+                    userEntity.setPassword(encryptPassword[1]);
+                    UserEntity createdUserEntity;
+                    try {
+                        createdUserEntity = transactionTemplate.execute(status -> userDao.createUser(userEntity));
+                    } catch (DataIntegrityViolationException e) {
+                        try {
+                            signupAvailabilityIndex.checkTaken(userEntity.getUserName(), userEntity.getEmailAddress());
+                        } catch (SignUpRestrictedException signUpRestrictedException) {
+                            throw new CompletionException(signUpRestrictedException);
+                        }
+                        throw e;
+                    }
+                    signupAvailabilityIndex.add(createdUserEntity.getUserName(), createdUserEntity.getEmailAddress());
+                    return createdUserEntity;
+                }, passwordHashingExecutor.getPersistenceExecutor());
     }
 
 
@@ -102,8 +147,16 @@ public class UserService {
     public UserAuthTokenEntity getUserAuthTokenEntityByAccessToken(String accessToken)
             throws SignOutRestrictedException {
 
+        if (OpaqueAccessToken.isStoredDigest(accessToken)) {
+            throw new SignOutRestrictedException("SGR-001", "User is not Signed in");
+        }
+
+        // A session that has not been written to user_auth yet could not be signed out in the DB
+        sessionWriteBehind.flush(accessToken);
+
+        final String lookupKey = OpaqueAccessToken.toLookupKey(accessToken);
         UserAuthTokenEntity userAuthTokenEntity =
-                userDao.findUserAuthTokenEntityByAccessToken(accessToken);
+                userDao.findUserAuthTokenEntityByAccessToken(lookupKey);
 
         if (userAuthTokenEntity == null) {
 
@@ -112,6 +165,9 @@ public class UserService {
 
             final ZonedDateTime currentTime = ZonedDateTime.now();
             userAuthTokenEntity.setLogoutAt(currentTime);
+            // The cached session still carries the old logout state, so it must not be served any longer
+            userAuthTokenCache.invalidate(accessToken);
+            signedOutTokenIndex.revoke(lookupKey, userAuthTokenEntity.getExpiresAt().toInstant().toEpochMilli());
             return userAuthTokenEntity;
         }
     }
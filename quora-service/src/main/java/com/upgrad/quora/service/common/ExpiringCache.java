@@ -0,0 +1,147 @@
+package com.upgrad.quora.service.common;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * A bounded, concurrent key/value cache where every entry carries its own expiry time.
+ * When the cache is full, expired entries are purged first and then the entries closest to expiry are evicted.
+ * Hit, miss and eviction counters are kept so that the cache effectiveness can be monitored.
+ */
+public class ExpiringCache<K, V> {
+
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    private final int maxSize;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    public ExpiringCache(final int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @param key key of the entry
+     * @return the cached value, or null when the key is absent or its entry has expired
+     */
+    public V get(final K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.isExpired(System.currentTimeMillis())) {
+            entries.remove(key, entry);
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value;
+    }
+
+    /**
+     * @param key       key of the entry
+     * @param value     value to be cached
+     * @param expiresAt epoch millis after which the entry is no longer served
+     */
+    public void put(final K key, final V value, final long expiresAt) {
+        if (expiresAt <= System.currentTimeMillis()) {
+            entries.remove(key);
+            return;
+        }
+        if (entries.size() >= maxSize && !entries.containsKey(key)) {
+            evict();
+        }
+        entries.put(key, new Entry<>(value, expiresAt));
+    }
+
+    public void invalidate(final K key) {
+        entries.remove(key);
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    /**
+     * @param condition condition of the values whose entries are removed
+     */
+    public void invalidateIf(final Predicate<? super V> condition) {
+        entries.values().removeIf(entry -> condition.test(entry.value));
+    }
+
+    /**
+     * Removes every entry whose expiry time has passed.
+     */
+    public void purgeExpired() {
+        final long now = System.currentTimeMillis();
+        entries.entrySet().removeIf(e -> e.getValue().isExpired(now));
+    }
+
+    private void evict() {
+        purgeExpired();
+        // Still full after dropping the expired entries, so sacrifice the entries that would expire first
+        int excess = entries.size() - maxSize + Math.max(1, maxSize / 16);
+        while (excess-- > 0) {
+            K victim = null;
+            long earliest = Long.MAX_VALUE;
+            Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+            for (int sampled = 0; sampled < 8 && iterator.hasNext(); sampled++) {
+                Map.Entry<K, Entry<V>> candidate = iterator.next();
+                if (candidate.getValue().expiresAt < earliest) {
+                    earliest = candidate.getValue().expiresAt;
+                    victim = candidate.getKey();
+                }
+            }
+            if (victim == null) {
+                return;
+            }
+            if (entries.remove(victim) != null) {
+                evictions.increment();
+            }
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(final V value, final long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(final long now) {
+            return expiresAt <= now;
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package com.upgrad.quora.service.common;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A thread safe in-memory inverted index of short documents, ranked with BM25.
+ * Documents are keyed by an int id and keep their uuid, text and a digest of the text, so that search hits need no DB read
+ * and a saved index can be reconciled with the DB by comparing digests only.
+ * The index can be saved to and loaded from a segment file, written and read through a memory mapping.
+ */
+public class InvertedIndex {
+
+    private static final int MAGIC = 0x51534958;
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final double K1 = 1.2;
+
+    private static final double B = 0.75;
+
+    private final Map<Integer, Document> documents = new HashMap<>();
+
+    private final Map<String, Map<Integer, Integer>> postings = new HashMap<>();
+
+    private long totalLength;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Splits a text into lower case runs of letters and digits.
+     *
+     * @param text text to be split
+     * @return the terms of the text, in order, with repetitions
+     */
+    public static List<String> tokenize(final String text) {
+        final List<String> terms = new ArrayList<>();
+        final String lowerCase = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i < lowerCase.length(); i++) {
+            if (Character.isLetterOrDigit(lowerCase.charAt(i))) {
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                terms.add(lowerCase.substring(start, i));
+                start = -1;
+            }
+        }
+        if (start >= 0) {
+            terms.add(lowerCase.substring(start));
+        }
+        return terms;
+    }
+
+    /**
+     * Adds a document, or replaces it when the id is already indexed.
+     *
+     * @param id     id of the document
+     * @param uuid   uuid of the document, returned in search hits
+     * @param text   text of the document
+     * @param digest digest of the text, compared by the caller to find out whether the document changed
+     */
+    public void put(final int id, final String uuid, final String text, final String digest) {
+        final List<String> terms = tokenize(text);
+        final Map<String, Integer> frequencies = new HashMap<>();
+        for (String term : terms) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+        lock.writeLock().lock();
+        try {
+            removeDocument(id);
+            documents.put(id, new Document(uuid, text, digest, terms.size()));
+            totalLength += terms.size();
+            for (Map.Entry<String, Integer> frequency : frequencies.entrySet()) {
+                postings.computeIfAbsent(frequency.getKey(), term -> new HashMap<>()).put(id, frequency.getValue());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param id id of the document to be removed, ignored when it is not indexed
+     */
+    public void remove(final int id) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeDocument(final int id) {
+        final Document document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+        totalLength -= document.length;
+        for (String term : new HashSet<>(tokenize(document.text))) {
+            final Map<Integer, Integer> termPostings = postings.get(term);
+            if (termPostings != null) {
+                termPostings.remove(id);
+                if (termPostings.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    /**
+     * Ranks the documents containing any term of the query with BM25 and keeps the best ones in a bounded min-heap.
+     *
+     * @param query text of the query
+     * @param limit maximum number of hits
+     * @return the best hits, best first
+     */
+    public List<SearchHit> search(final String query, final int limit) {
+        final Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        if (terms.isEmpty() || limit < 1) {
+            return Collections.emptyList();
+        }
+        final PriorityQueue<SearchHit> best = new PriorityQueue<>(limit + 1,
+                (left, right) -> Double.compare(left.getScore(), right.getScore()));
+        lock.readLock().lock();
+        try {
+            final int documentCount = documents.size();
+            if (documentCount == 0) {
+                return Collections.emptyList();
+            }
+            final double averageLength = Math.max(1, (double) totalLength / documentCount);
+            final Map<Integer, Double> scores = new HashMap<>();
+            for (String term : terms) {
+                final Map<Integer, Integer> termPostings = postings.get(term);
+                if (termPostings == null) {
+                    continue;
+                }
+                final int df = termPostings.size();
+                final double idf = Math.log(1 + (documentCount - df + 0.5) / (df + 0.5));
+                for (Map.Entry<Integer, Integer> posting : termPostings.entrySet()) {
+                    final int tf = posting.getValue();
+                    final double norm = K1 * (1 - B + B * documents.get(posting.getKey()).length / averageLength);
+                    scores.merge(posting.getKey(), idf * tf * (K1 + 1) / (tf + norm), Double::sum);
+                }
+            }
+            for (Map.Entry<Integer, Double> score : scores.entrySet()) {
+                if (best.size() < limit || score.getValue() > best.peek().getScore()) {
+                    final Document document = documents.get(score.getKey());
+                    best.add(new SearchHit(document.uuid, document.text, score.getValue()));
+                    if (best.size() > limit) {
+                        best.poll();
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        final List<SearchHit> hits = new ArrayList<>(best);
+        hits.sort((left, right) -> Double.compare(right.getScore(), left.getScore()));
+        return hits;
+    }
+
+    /**
+     * @param id id of the document
+     * @return digest the document was indexed with, or null when it is not indexed
+     */
+    public String getDigest(final int id) {
+        lock.readLock().lock();
+        try {
+            final Document document = documents.get(id);
+            return document == null ? null : document.digest;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return ids of the indexed documents, copied
+     */
+    public Set<Integer> getIds() {
+        lock.readLock().lock();
+        try {
+            return new HashSet<>(documents.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getDocumentCount() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getTermCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the index to a segment file, replacing it atomically through a temporary file next to it.
+     *
+     * @param file the segment file
+     * @throws IOException in cases where the file cannot be written
+     */
+    public void save(final Path file) throws IOException {
+        final Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+        lock.readLock().lock();
+        try {
+            long size = 12;
+            for (Map.Entry<Integer, Document> entry : documents.entrySet()) {
+                final Document document = entry.getValue();
+                size += 8 + stringSize(document.uuid) + stringSize(document.text) + stringSize(document.digest);
+            }
+            size += 4;
+            for (Map.Entry<String, Map<Integer, Integer>> entry : postings.entrySet()) {
+                size += stringSize(entry.getKey()) + 4 + 8L * entry.getValue().size();
+            }
+
+            try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(documents.size());
+                for (Map.Entry<Integer, Document> entry : documents.entrySet()) {
+                    final Document document = entry.getValue();
+                    buffer.putInt(entry.getKey()).putInt(document.length);
+                    putString(buffer, document.uuid);
+                    putString(buffer, document.text);
+                    putString(buffer, document.digest);
+                }
+                buffer.putInt(postings.size());
+                for (Map.Entry<String, Map<Integer, Integer>> entry : postings.entrySet()) {
+                    putString(buffer, entry.getKey());
+                    buffer.putInt(entry.getValue().size());
+                    for (Map.Entry<Integer, Integer> posting : entry.getValue().entrySet()) {
+                        buffer.putInt(posting.getKey()).putInt(posting.getValue());
+                    }
+                }
+                buffer.force();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads an index from a segment file written by save, without tokenizing the documents again.
+     *
+     * @param file the segment file
+     * @return the index, or null when the file does not exist or was not written by this version of save
+     * @throws IOException in cases where the file cannot be read
+     */
+    public static InvertedIndex load(final Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 12 || buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                return null;
+            }
+            final InvertedIndex index = new InvertedIndex();
+            final int documentCount = buffer.getInt();
+            for (int i = 0; i < documentCount; i++) {
+                final int id = buffer.getInt();
+                final int length = buffer.getInt();
+                index.documents.put(id, new Document(getString(buffer), getString(buffer), getString(buffer), length));
+                index.totalLength += length;
+            }
+            final int termCount = buffer.getInt();
+            for (int i = 0; i < termCount; i++) {
+                final String term = getString(buffer);
+                final int postingCount = buffer.getInt();
+                final Map<Integer, Integer> termPostings = new HashMap<>(postingCount * 2);
+                for (int j = 0; j < postingCount; j++) {
+                    termPostings.put(buffer.getInt(), buffer.getInt());
+                }
+                index.postings.put(term, termPostings);
+            }
+            return index;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            // A truncated or corrupt segment is rebuilt from the DB like a missing one
+            return null;
+        }
+    }
+
+    private static long stringSize(final String value) {
+        return 4 + value.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static void putString(final MappedByteBuffer buffer, final String value) {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length).put(bytes);
+    }
+
+    private static String getString(final MappedByteBuffer buffer) {
+        final int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("String length " + length + " out of segment bounds");
+        }
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static final class Document {
+        private final String uuid;
+        private final String text;
+        private final String digest;
+        private final int length;
+
+        private Document(final String uuid, final String text, final String digest, final int length) {
+            this.uuid = uuid;
+            this.text = text;
+            this.digest = digest;
+            this.length = length;
+        }
+    }
+}
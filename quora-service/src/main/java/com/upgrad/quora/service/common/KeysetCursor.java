@@ -0,0 +1,60 @@
+package com.upgrad.quora.service.common;
+
+import com.upgrad.quora.service.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a listing ordered by (date, id), handed to the client as an opaque string to continue the listing after it.
+ */
+public final class KeysetCursor {
+
+    private final Instant date;
+
+    private final int id;
+
+    private KeysetCursor(final Instant date, final int id) {
+        this.date = date;
+        this.id = id;
+    }
+
+    /**
+     * @param date date of the last row of a page
+     * @param id   id of the last row of a page
+     * @return the cursor continuing after that row
+     */
+    public static String encode(final ZonedDateTime date, final Integer id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((date.toInstant() + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param cursor cursor sent by the client
+     * @return the decoded cursor
+     * @throws InvalidCursorException in cases where the cursor was not produced by encode
+     */
+    public static KeysetCursor decode(final String cursor) throws InvalidCursorException {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length == 2) {
+                return new KeysetCursor(Instant.parse(parts[0]), Integer.parseInt(parts[1]));
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            // Reported below, like any other malformed cursor
+        }
+        throw new InvalidCursorException("PAG-001", "The cursor is not valid, use the cursor of the previous page");
+    }
+
+    public Timestamp getDate() {
+        return Timestamp.from(date);
+    }
+
+    public int getId() {
+        return id;
+    }
+}
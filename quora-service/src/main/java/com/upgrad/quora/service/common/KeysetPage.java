@@ -0,0 +1,29 @@
+package com.upgrad.quora.service.common;
+
+import java.util.List;
+
+/**
+ * A page of a listing ordered by (date, id), with the cursor of the next page.
+ */
+public class KeysetPage<T> {
+
+    private final List<T> items;
+
+    private final String nextCursor;
+
+    public KeysetPage(final List<T> items, final String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * @return cursor of the next page, or null if this page is the last one
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
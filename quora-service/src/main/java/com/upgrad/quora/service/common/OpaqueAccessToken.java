@@ -0,0 +1,78 @@
+package com.upgrad.quora.service.common;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.regex.Pattern;
+
+/**
+ * Opaque access tokens, and the key under which access tokens of either format are stored in USER_AUTH.ACCESS_TOKEN.
+ * An opaque token is a short random string of which only the fixed-width SHA-256 digest is stored, so user_auth never holds
+ * a usable token; JWT access tokens are stored and looked up as they are. The digest is stored with a prefix no issued token
+ * has, and tokens of the stored shape are refused before any lookup, so that a digest read from a copy of user_auth cannot
+ * be presented in place of the token.
+ */
+public final class OpaqueAccessToken {
+
+    public static final String PREFIX = "qo_";
+
+    public static final String DIGEST_PREFIX = "sha256:";
+
+    // Shape of the digests stored before they had a prefix
+    private static final Pattern HEX_DIGEST = Pattern.compile("[0-9a-fA-F]{64}");
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final static char[] hexArray = "0123456789abcdef".toCharArray();
+
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
+    private OpaqueAccessToken() {
+    }
+
+    /**
+     * @return a new random access token, 256 bits encoded in 43 url safe characters after the prefix
+     */
+    public static String generate() {
+        byte[] tokenBytes = new byte[TOKEN_BYTES];
+        SECURE_RANDOM.nextBytes(tokenBytes);
+        return PREFIX + Base64.getUrlEncoder().withoutPadding().encodeToString(tokenBytes);
+    }
+
+    public static boolean isOpaque(final String accessToken) {
+        return accessToken != null && accessToken.startsWith(PREFIX);
+    }
+
+    /**
+     * @param accessToken access token as sent by the client
+     * @return true if the access token has the shape of a stored digest, and must be refused without a lookup
+     */
+    public static boolean isStoredDigest(final String accessToken) {
+        return accessToken != null && (accessToken.startsWith(DIGEST_PREFIX) || HEX_DIGEST.matcher(accessToken).matches());
+    }
+
+    /**
+     * @param accessToken access token as sent by the client, or as stored in user_auth; clients' tokens must have been
+     *                    checked with isStoredDigest first
+     * @return the value stored in USER_AUTH.ACCESS_TOKEN for the access token
+     */
+    public static String toLookupKey(final String accessToken) {
+        if (!isOpaque(accessToken)) {
+            return accessToken;
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(accessToken.getBytes(StandardCharsets.US_ASCII));
+            char[] hexChars = new char[digest.length * 2];
+            for (int j = 0; j < digest.length; j++) {
+                int v = digest[j] & 0xFF;
+                hexChars[j * 2] = hexArray[v >>> 4];
+                hexChars[j * 2 + 1] = hexArray[v & 0x0F];
+            }
+            return DIGEST_PREFIX + new String(hexChars);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.upgrad.quora.service.common;
+
+/**
+ * A document found by InvertedIndex.search, with its relevance to the query.
+ */
+public class SearchHit {
+
+    private final String uuid;
+
+    private final String text;
+
+    private final double score;
+
+    public SearchHit(final String uuid, final String text, final double score) {
+        this.uuid = uuid;
+        this.text = text;
+        this.score = score;
+    }
+
+    public String getUuid() {
+        return uuid;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public double getScore() {
+        return score;
+    }
+}
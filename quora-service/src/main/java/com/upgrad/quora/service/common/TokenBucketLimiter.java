@@ -0,0 +1,125 @@
+package com.upgrad.quora.service.common;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread safe, lock free rate limiter holding one token bucket per key in a fixed number of slots.
+ * Each slot is a single long packing the time of the last update and the tokens left, so a bucket is taken from and refilled
+ * with one compare-and-set, and buckets of idle keys decay back to full without any cleanup.
+ * Keys are spread over the slots with a hash seeded per instance, and memory stays bounded by the number of slots whatever
+ * the number of keys. Keys sharing a slot share a bucket, so whoever drains one key also drains the others of its slot:
+ * callers must choose keys and a slot count such that no one can cheaply drain the bucket of somebody else.
+ */
+public class TokenBucketLimiter {
+
+    private static final int TOKEN_BITS = 22;
+
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+
+    // Tokens are kept in thousandths, so that slow refill rates still accumulate between two requests
+    private static final long TOKEN_SCALE = 1000;
+
+    private static final long EMPTY_SLOT = 0L;
+
+    private final AtomicLongArray slots;
+
+    private final int slotMask;
+
+    private final long capacity;
+
+    private final double refillPerMilli;
+
+    private final long epochMillis;
+
+    private final long seed;
+
+    /**
+     * @param slotCount        number of buckets, rounded up to a power of two
+     * @param capacity         burst size, the number of tokens of a full bucket
+     * @param refillPerMinute  tokens added to a bucket every minute
+     */
+    public TokenBucketLimiter(final int slotCount, final int capacity, final double refillPerMinute) {
+        if (capacity < 1 || capacity * TOKEN_SCALE > TOKEN_MASK) {
+            throw new IllegalArgumentException("Capacity must be between 1 and " + TOKEN_MASK / TOKEN_SCALE);
+        }
+        if (refillPerMinute <= 0) {
+            throw new IllegalArgumentException("Refill rate must be positive");
+        }
+        final int size = Integer.highestOneBit(Math.max(2, slotCount - 1)) << 1;
+        this.slots = new AtomicLongArray(size);
+        this.slotMask = size - 1;
+        this.capacity = capacity * TOKEN_SCALE;
+        this.refillPerMilli = refillPerMinute * TOKEN_SCALE / 60_000.0;
+        // Stored times are relative to the creation of the limiter, so that a zero slot can mean "never used"
+        this.epochMillis = System.currentTimeMillis() - 1;
+        this.seed = new SecureRandom().nextLong();
+    }
+
+    /**
+     * Takes one token from the bucket of the key.
+     *
+     * @param key the key to limit, e.g. a username or a client address
+     * @return 0 if a token was taken, else the number of milliseconds until the bucket holds a token again
+     */
+    public long tryAcquire(final String key) {
+        final int index = (int) hash(key) & slotMask;
+        final long now = System.currentTimeMillis() - epochMillis;
+        while (true) {
+            final long current = slots.get(index);
+            final long tokens = tokensAt(current, now);
+            if (tokens < TOKEN_SCALE) {
+                return (long) Math.ceil((TOKEN_SCALE - tokens) / refillPerMilli);
+            }
+            if (slots.compareAndSet(index, current, (now << TOKEN_BITS) | (tokens - TOKEN_SCALE))) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Gives back a token taken by tryAcquire, for an attempt that turned out not to count, up to the capacity of the bucket.
+     *
+     * @param key the key the token was taken for
+     */
+    public void release(final String key) {
+        final int index = (int) hash(key) & slotMask;
+        final long now = System.currentTimeMillis() - epochMillis;
+        while (true) {
+            final long current = slots.get(index);
+            final long tokens = Math.min(capacity, tokensAt(current, now) + TOKEN_SCALE);
+            if (slots.compareAndSet(index, current, (now << TOKEN_BITS) | tokens)) {
+                return;
+            }
+        }
+    }
+
+    private long tokensAt(final long slot, final long now) {
+        if (slot == EMPTY_SLOT) {
+            return capacity;
+        }
+        final long updatedAt = slot >>> TOKEN_BITS;
+        final long elapsed = Math.max(0, now - updatedAt);
+        final double refilled = (slot & TOKEN_MASK) + elapsed * refillPerMilli;
+        return refilled >= capacity ? capacity : (long) refilled;
+    }
+
+    /**
+     * 64 bit FNV-1a over the UTF-8 bytes of the key starting from the seed of the instance, finished with the MurmurHash3 mixer.
+     * The seed keeps clients from choosing keys that collide with the bucket of somebody else.
+     */
+    private long hash(final String key) {
+        long hash = 0xcbf29ce484222325L ^ seed;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -6,6 +6,9 @@ import org.springframework.stereotype.Repository;
 import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
 import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -47,6 +50,84 @@ public class AnswerDao {
         return entityManager.merge(answerEntity);
     }
 
+    /**
+     * Edits an answer in one statement, provided the user owns it and, when given, it still has the version the client read.
+     * The version is incremented like Hibernate does for the @Version of AnswerEntity. The statement is native so that it
+     * can return the new version; the caller evicts the cached answer by the returned id.
+     *
+     * @param uuid            uuid of the answer
+     * @param content         new content of the answer
+     * @param userId          id of the user, who must own the answer
+     * @param expectedVersion version the answer must still have, or null to edit whatever the version
+     * @return the edited answer with its new version, or null when the answer does not exist, belongs to another user or
+     * has another version
+     */
+    @SuppressWarnings("unchecked")
+    public VersionedRow updateAnswerContent(String uuid, String content, Integer userId, Integer expectedVersion)
+    {
+        Query query;
+        if (expectedVersion == null) {
+            query = entityManager.createNativeQuery("update answer set ans = ?1, version = version + 1 "
+                    + "where uuid = ?2 and user_id = ?3 returning id, user_id, version");
+        } else {
+            query = entityManager.createNativeQuery("update answer set ans = ?1, version = version + 1 "
+                    + "where uuid = ?2 and user_id = ?3 and version = ?4 returning id, user_id, version")
+                    .setParameter(4, expectedVersion);
+        }
+        List<Object[]> rows = query.setParameter(1, content).setParameter(2, uuid).setParameter(3, userId).getResultList();
+        return rows.isEmpty() ? null : VersionedRow.of(rows.get(0));
+    }
+
+    /**
+     * Probe explaining why a conditional edit matched nothing, only run in that case.
+     *
+     * @param uuid uuid of the answer
+     * @return id, owner and current version of the answer, or null when it does not exist
+     */
+    @SuppressWarnings("unchecked")
+    public VersionedRow findVersionedRow(String uuid)
+    {
+        List<Object[]> rows = entityManager.createNativeQuery("select id, user_id, version from answer where uuid = ?1")
+                .setParameter(1, uuid)
+                .getResultList();
+        return rows.isEmpty() ? null : VersionedRow.of(rows.get(0));
+    }
+
+    /**
+     * Deletes an answer in one statement, provided the user owns it or is admin.
+     *
+     * @param uuid    uuid of the answer
+     * @param userId  id of the user, who must own the answer unless admin
+     * @param isAdmin whether the user may delete any answer
+     * @return number of deleted answers, 0 when the answer does not exist or belongs to another user
+     */
+    public int deleteAnswer(String uuid, Integer userId, boolean isAdmin)
+    {
+        if (isAdmin) {
+            return entityManager.createQuery("delete from AnswerEntity a where a.uuid = :uuid")
+                    .setParameter("uuid", uuid)
+                    .executeUpdate();
+        }
+        return entityManager.createQuery("delete from AnswerEntity a where a.uuid = :uuid and a.user.id = :userId")
+                .setParameter("uuid", uuid)
+                .setParameter("userId", userId)
+                .executeUpdate();
+    }
+
+    /**
+     * Probe telling a missing answer from a forbidden one, only run after a conditional statement affected nothing.
+     *
+     * @param uuid uuid of the answer
+     * @return true if the answer exists
+     */
+    public boolean existsAnswer(String uuid)
+    {
+        return !entityManager.createQuery("select a.id from AnswerEntity a where a.uuid = :uuid")
+                .setParameter("uuid", uuid)
+                .setMaxResults(1)
+                .getResultList().isEmpty();
+    }
+
     public AnswerEntity deleteAnswer(AnswerEntity answerEntity)
     {
         entityManager.remove(answerEntity);
@@ -58,4 +139,56 @@ public class AnswerDao {
         return entityManager.createNamedQuery("getAllAnswers",AnswerEntity.class)
                 .setParameter("uuid",questionId).getResultList();
     }
+
+    /**
+     * Reads the question and the columns listed for its answers in one statement, joining the answers to the question so
+     * that a question without answers still returns a row. No AnswerEntity (and none of the users and questions it eagerly
+     * joins) is loaded into the persistence context.
+     *
+     * @param questionId uuid of the question
+     * @return the answers to the question, oldest first, or null when the question does not exist
+     */
+    @SuppressWarnings("unchecked")
+    public List<AnswerSummary> getAnswersWithQuestion(String questionId)
+    {
+        List<Object[]> rows = entityManager.createQuery("select q.content, a.uuid, a.answer, a.version from QuestionEntity q "
+                + "left join AnswerEntity a on a.question = q where q.uuid = :uuid order by a.date, a.id")
+                .setParameter("uuid", questionId).getResultList();
+        if (rows.isEmpty()) {
+            return null;
+        }
+        List<AnswerSummary> answers = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            if (row[1] != null) {
+                answers.add(new AnswerSummary((String) row[1], (String) row[2], questionId, (String) row[0], (Integer) row[3]));
+            }
+        }
+        return answers;
+    }
+
+    /**
+     * The first answers of each question are read through a lateral join, so that every question costs one bounded walk of
+     * the (question_id, date, id) index of ANSWER, however many answers it has.
+     *
+     * @param questionIds uuids of the questions, at most the batch limit enforced by the caller
+     * @param limit       most answers per question
+     * @return the first answers to each of the questions in one statement, oldest first within each question
+     */
+    @SuppressWarnings("unchecked")
+    public List<AnswerSummary> getAnswersToQuestions(Collection<String> questionIds, int limit)
+    {
+        List<Object[]> rows = entityManager.createNativeQuery("select a.uuid, a.ans, q.uuid as question_uuid, q.content, a.version "
+                + "from question q cross join lateral (select a.uuid, a.ans, a.version, a.date, a.id from answer a "
+                + "where a.question_id = q.id order by a.date, a.id limit ?2) a "
+                + "where q.uuid in (?1) order by q.id, a.date, a.id")
+                .setParameter(1, questionIds)
+                .setParameter(2, limit)
+                .getResultList();
+        List<AnswerSummary> answers = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            answers.add(new AnswerSummary((String) row[0], (String) row[1], (String) row[2], (String) row[3],
+                    ((Number) row[4]).intValue()));
+        }
+        return answers;
+    }
 }
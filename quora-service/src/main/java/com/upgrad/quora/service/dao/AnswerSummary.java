@@ -0,0 +1,49 @@
+package com.upgrad.quora.service.dao;
+
+/**
+ * The columns of an answer needed to list it with its question, read without loading AnswerEntity and QuestionEntity.
+ */
+public class AnswerSummary {
+
+    private final String uuid;
+
+    private final String answerContent;
+
+    private final String questionUuid;
+
+    private final String questionContent;
+
+    private final Integer version;
+
+    public AnswerSummary(final String uuid, final String answerContent, final String questionUuid, final String questionContent,
+                         final Integer version) {
+        this.uuid = uuid;
+        this.answerContent = answerContent;
+        this.questionUuid = questionUuid;
+        this.questionContent = questionContent;
+        this.version = version;
+    }
+
+    public String getUuid() {
+        return uuid;
+    }
+
+    public String getAnswerContent() {
+        return answerContent;
+    }
+
+    public String getQuestionUuid() {
+        return questionUuid;
+    }
+
+    public String getQuestionContent() {
+        return questionContent;
+    }
+
+    /**
+     * @return version of the answer, for the If-Match of a later edit
+     */
+    public Integer getVersion() {
+        return version;
+    }
+}
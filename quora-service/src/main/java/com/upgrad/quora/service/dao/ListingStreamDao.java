@@ -0,0 +1,71 @@
+package com.upgrad.quora.service.dao;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Full listings of questions and answers read through a forward-only JDBC cursor, fetch-size rows at a time, and handed
+ * over row by row, so memory use does not depend on the size of the listing.
+ * The PostgreSQL driver only reads through a cursor inside a transaction, so callers must run these in one.
+ */
+@Repository
+public class ListingStreamDao {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Value("${quora.streaming.fetch-size:500}")
+    private int fetchSize;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    void init() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    /**
+     * @param consumer called with every question, newest first
+     */
+    public void forEachQuestion(final Consumer<QuestionSummary> consumer) {
+        jdbcTemplate.query("select id, uuid, content, date, version from question order by date desc, id desc",
+                resultSet -> {
+                    consumer.accept(new QuestionSummary(resultSet.getInt(1), resultSet.getString(2), resultSet.getString(3),
+                            ZonedDateTime.ofInstant(resultSet.getTimestamp(4).toInstant(), ZoneId.systemDefault()),
+                            resultSet.getInt(5)));
+                });
+    }
+
+    /**
+     * @param consumer called with the id and the lowercase hex MD5 of the UTF-8 content of every question, in id order
+     */
+    public void forEachQuestionDigest(final BiConsumer<Integer, String> consumer) {
+        jdbcTemplate.query("select id, md5(content) from question order by id",
+                resultSet -> {
+                    consumer.accept(resultSet.getInt(1), resultSet.getString(2));
+                });
+    }
+
+    /**
+     * @param questionUuid uuid of the question
+     * @param consumer     called with every answer to the question
+     */
+    public void forEachAnswerToQuestion(final String questionUuid, final Consumer<AnswerSummary> consumer) {
+        jdbcTemplate.query("select a.uuid, a.ans, q.uuid, q.content, a.version from answer a join question q on q.id = a.question_id "
+                        + "where q.uuid = ? order by a.date, a.id",
+                resultSet -> {
+                    consumer.accept(new AnswerSummary(resultSet.getString(1), resultSet.getString(2), resultSet.getString(3),
+                            resultSet.getString(4), resultSet.getInt(5)));
+                }, questionUuid);
+    }
+}
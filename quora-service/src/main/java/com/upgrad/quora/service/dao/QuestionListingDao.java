@@ -0,0 +1,109 @@
+package com.upgrad.quora.service.dao;
+
+import com.upgrad.quora.service.common.KeysetCursor;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import java.sql.Timestamp;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Pages of questions, newest first, continued with a seek on (date, id) instead of an OFFSET so every page costs the same
+ * whatever its depth. Only the listed columns are selected, into QuestionSummary instances that the persistence context
+ * never sees.
+ */
+@Repository
+public class QuestionListingDao {
+
+    private static final String COLUMNS = "select q.id, q.uuid, q.content, q.date, q.version from question q ";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * @param after position after which the page starts, or null for the first page
+     * @param limit maximum number of questions
+     * @return questions of the page, newest first
+     */
+    public List<QuestionSummary> getQuestions(final KeysetCursor after, final int limit) {
+        Query query;
+        if (after == null) {
+            query = entityManager.createNativeQuery(COLUMNS + "order by q.date desc, q.id desc");
+        } else {
+            query = entityManager.createNativeQuery(COLUMNS + "where (q.date, q.id) < (?1, ?2) order by q.date desc, q.id desc")
+                    .setParameter(1, after.getDate())
+                    .setParameter(2, after.getId());
+        }
+        return toSummaries(query.setMaxResults(limit));
+    }
+
+    /**
+     * @param userUuid uuid of the user who posted the questions
+     * @param after    position after which the page starts, or null for the first page
+     * @param limit    maximum number of questions
+     * @return questions of the user in the page, newest first
+     */
+    public List<QuestionSummary> getQuestionsByUser(final String userUuid, final KeysetCursor after, final int limit) {
+        Query query;
+        if (after == null) {
+            query = entityManager.createNativeQuery(COLUMNS + "join users u on u.id = q.user_id "
+                    + "where u.uuid = ?1 order by q.date desc, q.id desc")
+                    .setParameter(1, userUuid);
+        } else {
+            query = entityManager.createNativeQuery(COLUMNS + "join users u on u.id = q.user_id "
+                    + "where u.uuid = ?1 and (q.date, q.id) < (?2, ?3) order by q.date desc, q.id desc")
+                    .setParameter(1, userUuid)
+                    .setParameter(2, after.getDate())
+                    .setParameter(3, after.getId());
+        }
+        return toSummaries(query.setMaxResults(limit));
+    }
+
+    /**
+     * @param ids ids of the questions, kept to a few hundred per call by the caller
+     * @return the questions among the ids that exist, in no particular order
+     */
+    public List<QuestionSummary> getQuestionsById(final Collection<Integer> ids) {
+        return toSummaries(entityManager.createNativeQuery(COLUMNS + "where q.id in (?1)").setParameter(1, ids));
+    }
+
+    /**
+     * @param uuids uuids of the questions, kept to the batch limit by the caller
+     * @return the questions among the uuids that exist, in no particular order
+     */
+    public List<QuestionSummary> getQuestionsByUuid(final Collection<String> uuids) {
+        return toSummaries(entityManager.createNativeQuery(COLUMNS + "where q.uuid in (?1)").setParameter(1, uuids));
+    }
+
+    /**
+     * @param userId id of the user
+     * @return ids of the questions of the user
+     */
+    public List<Integer> getQuestionIdsOfUser(final Integer userId) {
+        final List<Integer> ids = new ArrayList<>();
+        for (Object id : entityManager.createNativeQuery("select q.id from question q where q.user_id = ?1")
+                .setParameter(1, userId)
+                .getResultList()) {
+            ids.add(((Number) id).intValue());
+        }
+        return ids;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<QuestionSummary> toSummaries(final Query query) {
+        final List<Object[]> rows = query.getResultList();
+        final List<QuestionSummary> questions = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            questions.add(new QuestionSummary(((Number) row[0]).intValue(), (String) row[1], (String) row[2],
+                    ZonedDateTime.ofInstant(((Timestamp) row[3]).toInstant(), ZoneId.systemDefault()),
+                    ((Number) row[4]).intValue()));
+        }
+        return questions;
+    }
+}
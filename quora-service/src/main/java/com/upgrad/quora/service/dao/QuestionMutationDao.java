@@ -0,0 +1,94 @@
+package com.upgrad.quora.service.dao;
+
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import java.util.List;
+
+/**
+ * Edits and deletes of a question in a single conditional statement, with the ownership check in its WHERE clause instead
+ * of a load and a comparison in Java. The statements return the id of the affected question so that the caches keyed by
+ * id can be kept current; an empty result means the question does not exist or the user may not change it, which the
+ * caller tells apart with exists or findVersionedRow.
+ * Edits increment the VERSION column and can be made conditional on the version the client read, for optimistic locking.
+ */
+@Repository
+public class QuestionMutationDao {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * @param uuid            uuid of the question
+     * @param content         new content of the question
+     * @param userId          id of the user, who must own the question
+     * @param expectedVersion version the question must still have, or null to edit whatever the version
+     * @return the edited question with its new version, or null when no question was edited
+     */
+    @SuppressWarnings("unchecked")
+    public VersionedRow updateContent(final String uuid, final String content, final Integer userId,
+                                      final Integer expectedVersion) {
+        final Query query;
+        if (expectedVersion == null) {
+            query = entityManager.createNativeQuery("update question set content = ?1, version = version + 1 "
+                    + "where uuid = ?2 and user_id = ?3 returning id, user_id, version");
+        } else {
+            query = entityManager.createNativeQuery("update question set content = ?1, version = version + 1 "
+                    + "where uuid = ?2 and user_id = ?3 and version = ?4 returning id, user_id, version")
+                    .setParameter(4, expectedVersion);
+        }
+        final List<Object[]> rows = query.setParameter(1, content).setParameter(2, uuid).setParameter(3, userId).getResultList();
+        return rows.isEmpty() ? null : VersionedRow.of(rows.get(0));
+    }
+
+    /**
+     * @param uuid    uuid of the question
+     * @param userId  id of the user, who must own the question unless admin
+     * @param isAdmin whether the user may delete any question
+     * @return id of the deleted question, or null when no question was deleted
+     */
+    public Integer delete(final String uuid, final Integer userId, final boolean isAdmin) {
+        if (isAdmin) {
+            return affectedId(entityManager.createNativeQuery("delete from question where uuid = ?1 returning id")
+                    .setParameter(1, uuid));
+        }
+        return affectedId(entityManager.createNativeQuery("delete from question where uuid = ?1 and user_id = ?2 returning id")
+                .setParameter(1, uuid)
+                .setParameter(2, userId));
+    }
+
+    /**
+     * Probe telling a missing question from a forbidden one, only run after a conditional statement affected nothing.
+     *
+     * @param uuid uuid of the question
+     * @return true if the question exists
+     */
+    public boolean exists(final String uuid) {
+        return !entityManager.createNativeQuery("select 1 from question where uuid = ?1")
+                .setParameter(1, uuid)
+                .setMaxResults(1)
+                .getResultList().isEmpty();
+    }
+
+    /**
+     * Probe explaining why a conditional edit matched nothing, only run in that case.
+     *
+     * @param uuid uuid of the question
+     * @return id, owner and current version of the question, or null when it does not exist
+     */
+    @SuppressWarnings("unchecked")
+    public VersionedRow findVersionedRow(final String uuid) {
+        final List<Object[]> rows = entityManager.createNativeQuery("select id, user_id, version from question where uuid = ?1")
+                .setParameter(1, uuid)
+                .getResultList();
+        return rows.isEmpty() ? null : VersionedRow.of(rows.get(0));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Integer affectedId(final Query query) {
+        final List<Number> ids = query.getResultList();
+        return ids.isEmpty() ? null : ids.get(0).intValue();
+    }
+}
@@ -0,0 +1,51 @@
+package com.upgrad.quora.service.dao;
+
+import java.time.ZonedDateTime;
+
+/**
+ * The columns of a question needed to list it, read without loading a QuestionEntity.
+ */
+public class QuestionSummary {
+
+    private final Integer id;
+
+    private final String uuid;
+
+    private final String content;
+
+    private final ZonedDateTime date;
+
+    private final Integer version;
+
+    public QuestionSummary(final Integer id, final String uuid, final String content, final ZonedDateTime date,
+                           final Integer version) {
+        this.id = id;
+        this.uuid = uuid;
+        this.content = content;
+        this.date = date;
+        this.version = version;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public String getUuid() {
+        return uuid;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public ZonedDateTime getDate() {
+        return date;
+    }
+
+    /**
+     * @return version of the question, for the If-Match of a later edit
+     */
+    public Integer getVersion() {
+        return version;
+    }
+}
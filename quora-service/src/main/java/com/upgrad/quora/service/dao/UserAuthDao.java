@@ -0,0 +1,88 @@
+package com.upgrad.quora.service.dao;
+
+import com.upgrad.quora.service.common.OpaqueAccessToken;
+import com.upgrad.quora.service.entity.UserAuthTokenEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+/**
+ * Bulk queries over the user_auth table that do not need managed UserAuthTokenEntity instances.
+ */
+@Repository
+public class UserAuthDao {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * @return access token and expiry time of every session that has been signed out but has not expired yet
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object[]> getSignedOutUnexpiredTokens() {
+        return entityManager.createNativeQuery("select access_token, expires_at from user_auth "
+                + "where logout_at is not null and expires_at > current_timestamp").getResultList();
+    }
+
+    /**
+     * Method to insert sessions in a single JDBC batch, bypassing the persistence context.
+     * The access token is stored under its lookup key, while the given entities keep the access token issued to the client.
+     *
+     * @param userAuthTokenEntities the sessions to be inserted
+     */
+    public void insertAll(final List<UserAuthTokenEntity> userAuthTokenEntities) {
+        jdbcTemplate.batchUpdate("insert into user_auth (uuid, user_id, access_token, expires_at, login_at, logout_at) "
+                + "values (?, ?, ?, ?, ?, ?)", userAuthTokenEntities, userAuthTokenEntities.size(), (statement, session) -> {
+            statement.setString(1, session.getUuid());
+            statement.setObject(2, session.getUser().getId());
+            statement.setString(3, OpaqueAccessToken.toLookupKey(session.getAccessToken()));
+            statement.setTimestamp(4, toTimestamp(session.getExpiresAt()));
+            statement.setTimestamp(5, toTimestamp(session.getLoginAt()));
+            if (session.getLogoutAt() == null) {
+                statement.setNull(6, Types.TIMESTAMP);
+            } else {
+                statement.setTimestamp(6, toTimestamp(session.getLogoutAt()));
+            }
+        });
+    }
+
+    /**
+     * Method to find the next chunk of sessions that expired or were signed out before the cutoff, in ID order.
+     *
+     * @param afterId only sessions with a greater ID are returned
+     * @param cutoff  sessions expired or signed out before this time are returned
+     * @param limit   maximum number of IDs returned
+     * @return IDs of the sessions, in ascending order
+     */
+    public List<Long> getPurgeableIds(final long afterId, final Timestamp cutoff, final int limit) {
+        return jdbcTemplate.queryForList("select id from user_auth where id > ? and (expires_at < ? or logout_at < ?) "
+                + "order by id limit ?", Long.class, afterId, cutoff, cutoff, limit);
+    }
+
+    /**
+     * Method to delete the sessions in an ID range that expired or were signed out before the cutoff.
+     *
+     * @param fromId lowest ID of the range
+     * @param toId   highest ID of the range
+     * @param cutoff sessions expired or signed out before this time are deleted
+     * @return number of deleted sessions
+     */
+    public int deletePurgeable(final long fromId, final long toId, final Timestamp cutoff) {
+        return jdbcTemplate.update("delete from user_auth where id >= ? and id <= ? and (expires_at < ? or logout_at < ?)",
+                fromId, toId, cutoff, cutoff);
+    }
+
+    private static Timestamp toTimestamp(final ZonedDateTime dateTime) {
+        return Timestamp.from(dateTime.toInstant());
+    }
+}
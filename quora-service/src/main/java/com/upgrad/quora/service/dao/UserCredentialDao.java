@@ -0,0 +1,37 @@
+package com.upgrad.quora.service.dao;
+
+import com.upgrad.quora.service.entity.UserEntity;
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+/**
+ * Updates of the stored credentials of a user that do not need a managed UserEntity.
+ */
+@Repository
+public class UserCredentialDao {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Method to replace the password hash and salt of a user, used when a password is rehashed with the current parameters.
+     *
+     * @param uuid     UUID of the user
+     * @param password new password hash
+     * @param salt     new encoded salt
+     * @return number of updated rows
+     */
+    public int updateCredentials(final String uuid, final String password, final String salt) {
+        // Synchronized with UserEntity so that Hibernate evicts the user cache region only, instead of every region
+        return entityManager.createNativeQuery("update users set password = ?1, salt = ?2 where uuid = ?3")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(UserEntity.class)
+                .setParameter(1, password)
+                .setParameter(2, salt)
+                .setParameter(3, uuid)
+                .executeUpdate();
+    }
+}
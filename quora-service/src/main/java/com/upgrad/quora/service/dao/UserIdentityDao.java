@@ -0,0 +1,131 @@
+package com.upgrad.quora.service.dao;
+
+import com.upgrad.quora.service.entity.UserEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Queries over the unique usernames and emails of the users table, and bulk inserts of users, that do not need managed
+ * UserEntity instances.
+ */
+@Repository
+public class UserIdentityDao {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Value("${quora.streaming.fetch-size:500}")
+    private int fetchSize;
+
+    private JdbcTemplate streamingJdbcTemplate;
+
+    @PostConstruct
+    void init() {
+        streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        streamingJdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    /**
+     * Method to stream the username and email of every user, without holding them all in memory.
+     * Rows are read through a cursor fetch-size rows at a time, which the PostgreSQL driver only does inside a transaction,
+     * so callers must run this in one.
+     *
+     * @param consumer called with the username and the email of each user
+     */
+    public void forEachUserNameAndEmail(final BiConsumer<String, String> consumer) {
+        streamingJdbcTemplate.query("select username, email from users",
+                resultSet -> {
+                    consumer.accept(resultSet.getString(1), resultSet.getString(2));
+                });
+    }
+
+    /**
+     * Method to check in a single query whether a username and an email are taken.
+     *
+     * @param userName username to be checked
+     * @param email    email to be checked
+     * @return [0] true if the username is taken [1] true if the email is taken
+     */
+    public boolean[] findTaken(final String userName, final String email) {
+        return jdbcTemplate.queryForObject("select exists(select 1 from users where username = ?), "
+                        + "exists(select 1 from users where email = ?)",
+                (resultSet, rowNum) -> new boolean[]{resultSet.getBoolean(1), resultSet.getBoolean(2)}, userName, email);
+    }
+
+    /**
+     * @param userNames usernames to be checked
+     * @return the given usernames that are taken
+     */
+    public Set<String> findTakenUserNames(final Collection<String> userNames) {
+        if (userNames.isEmpty()) {
+            return Collections.emptySet();
+        }
+        return new HashSet<>(namedParameterJdbcTemplate.queryForList("select username from users where username in (:userNames)",
+                Collections.singletonMap("userNames", userNames), String.class));
+    }
+
+    /**
+     * @param emails emails to be checked
+     * @return the given emails that are taken
+     */
+    public Set<String> findTakenEmails(final Collection<String> emails) {
+        if (emails.isEmpty()) {
+            return Collections.emptySet();
+        }
+        return new HashSet<>(namedParameterJdbcTemplate.queryForList("select email from users where email in (:emails)",
+                Collections.singletonMap("emails", emails), String.class));
+    }
+
+    /**
+     * Method to insert users in a single JDBC batch.
+     * A user whose username or email is taken by then is skipped instead of failing the batch.
+     *
+     * @param userEntities users to be inserted, with hashed password and salt
+     * @return for each user, true if it was inserted
+     */
+    public boolean[] insertAll(final List<UserEntity> userEntities) {
+        final int[][] updateCounts = jdbcTemplate.batchUpdate("insert into users (uuid, firstname, lastname, username, email, "
+                        + "password, salt, country, aboutme, dob, role, contactnumber) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) "
+                        + "on conflict do nothing", userEntities, userEntities.size(), (statement, user) -> {
+                    statement.setString(1, user.getUuid());
+                    statement.setString(2, user.getFirstName());
+                    statement.setString(3, user.getLastName());
+                    statement.setString(4, user.getUserName());
+                    statement.setString(5, user.getEmailAddress());
+                    statement.setString(6, user.getPassword());
+                    statement.setString(7, user.getSalt());
+                    statement.setString(8, user.getCountry());
+                    statement.setString(9, user.getAboutMe());
+                    statement.setString(10, user.getDob());
+                    statement.setString(11, user.getRole());
+                    statement.setString(12, user.getContactNumber());
+                });
+        final boolean[] inserted = new boolean[userEntities.size()];
+        int index = 0;
+        for (int[] batchCounts : updateCounts) {
+            for (int count : batchCounts) {
+                // Drivers rewriting the batch report SUCCESS_NO_INFO, in which case conflicts cannot be told apart
+                inserted[index++] = count != 0;
+            }
+        }
+        return inserted;
+    }
+}
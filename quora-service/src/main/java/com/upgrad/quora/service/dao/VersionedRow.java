@@ -0,0 +1,41 @@
+package com.upgrad.quora.service.dao;
+
+/**
+ * Id, owner and version of a row of QUESTION or ANSWER, as returned by a conditional edit or read by the probe that
+ * explains why a conditional edit matched nothing.
+ */
+public class VersionedRow {
+
+    private final Integer id;
+
+    private final Integer userId;
+
+    private final Integer version;
+
+    public VersionedRow(final Integer id, final Integer userId, final Integer version) {
+        this.id = id;
+        this.userId = userId;
+        this.version = version;
+    }
+
+    /**
+     * @param row id, user_id and version columns, in that order
+     * @return the row, or null for no row
+     */
+    static VersionedRow of(final Object[] row) {
+        return row == null ? null : new VersionedRow(((Number) row[0]).intValue(), ((Number) row[1]).intValue(),
+                ((Number) row[2]).intValue());
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public Integer getVersion() {
+        return version;
+    }
+}